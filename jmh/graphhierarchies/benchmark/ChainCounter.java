@@ -0,0 +1,21 @@
+package graphhierarchies.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Keeps the number of chains of the last decomposition of a benchmark and prints it at the end of the trial, in
+ * the output of the forked JVM. The secondary results of JMH (AuxCounters) are summed over the iterations, so they
+ * do not fit a count that is the same in every call.
+ */
+@State(Scope.Thread)
+public class ChainCounter {
+    public long chains = -1;
+
+    @TearDown(Level.Trial)
+    public void print(){
+        System.out.println("chains: "+chains);
+    }
+}
@@ -0,0 +1,97 @@
+package graphhierarchies.benchmark;
+
+import graphhierarchies.chaindecomposition.Chain;
+import graphhierarchies.chaindecomposition.ChainDecomposition;
+import graphhierarchies.graph.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of the chain decompositions and of sparsification. The number of chains of every decomposition is
+ * printed at the end of its trial (ChainCounter).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainDecompositionBenchmark {
+
+    @State(Scope.Thread)
+    public static class Heuristic {
+        LinkedList<Chain> decomposition;
+
+        //ChainConcatenation joins the chains in place, so every call starts from the chains of FastChainDecomposition
+        @Setup(Level.Invocation)
+        public void setup(GraphState state){
+            decomposition = ChainDecomposition.FastChainDecomposition(state.topOrder);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Dense {
+        Vertex[] topOrder;
+        LinkedList<Chain> decomposition;
+
+        //sparsify removes edges, so every call gets the whole graph
+        @Setup(Level.Invocation)
+        public void setup(GraphState state){
+            topOrder = GraphState.topolSorting(state.file);
+            decomposition = ChainDecomposition.COH(topOrder);
+        }
+    }
+
+    private static LinkedList<Chain> count(LinkedList<Chain> decomposition, ChainCounter counter){
+        counter.chains = decomposition.size();
+        return decomposition;
+    }
+
+    @Benchmark
+    public LinkedList<Chain> COH(GraphState state, ChainCounter counter){
+        return count(ChainDecomposition.COH(state.topOrder),counter);
+    }
+
+    @Benchmark
+    public LinkedList<Chain> NOH(GraphState state, ChainCounter counter){
+        return count(ChainDecomposition.NOH(state.topOrder),counter);
+    }
+
+    @Benchmark
+    public LinkedList<Chain> NOH_variation(GraphState state, ChainCounter counter){
+        return count(ChainDecomposition.NOH_variation(state.topOrder),counter);
+    }
+
+    @Benchmark
+    public LinkedList<Chain> FastChainDecomposition(GraphState state, ChainCounter counter){
+        return count(ChainDecomposition.FastChainDecomposition(state.topOrder),counter);
+    }
+
+    @Benchmark
+    public LinkedList<Chain> ChainConcatenation(GraphState state, Heuristic input, ChainCounter counter){
+        ChainDecomposition.ChainConcatenation(input.decomposition,state.topOrder);
+        return count(input.decomposition,counter);
+    }
+
+    @Benchmark
+    public LinkedList<Chain> optChainDecomposition(GraphState state, ChainCounter counter){
+        return count(ChainDecomposition.optChainDecomposition(state.topOrder),counter);
+    }
+
+    @Benchmark
+    public Vertex[] sparsify(Dense input){
+        ChainDecomposition.sparsify(input.decomposition,input.topOrder);
+        return input.topOrder;
+    }
+}
@@ -0,0 +1,59 @@
+package graphhierarchies.benchmark;
+
+import graphhierarchies.generator.DAGGenerator;
+import graphhierarchies.graph.GraphUtil;
+import graphhierarchies.graph.Reader;
+import graphhierarchies.graph.Vertex;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+
+/**
+ * The input graph of the JMH benchmarks. A graph is either a file of the graphs folder (the system property graphs,
+ * src/InputGraphs by default) or generated-vertices-width-density, a graph of DAGGenerator with seed 1 that is
+ * written to the temporary folder. The graph is read once per trial and sorted topologically.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+    @Param({"graph3.csv","graph4.csv","graph5.csv","generated-5000-50-4"})
+    public String graph;
+
+    public File file;
+    public Vertex[] topOrder;   //a topological sorting with sorted adjacency lists
+
+    @Setup
+    public void setup(){
+        file = file(graph);
+        topOrder = topolSorting(file);
+        if(topOrder==null){
+            throw new IllegalArgumentException(graph+" is not acyclic");
+        }
+    }
+
+    static File file(String graph){
+        if(graph.startsWith("generated-")){
+            String[] parameters = graph.split("-");
+            File f = new File(System.getProperty("java.io.tmpdir"),graph+".csv");
+            new DAGGenerator(1).setVertices(Integer.parseInt(parameters[1])).setWidth(Integer.parseInt(parameters[2]))
+                    .setDensity(Double.parseDouble(parameters[3])).write(f);
+            f.deleteOnExit();
+            return f;
+        }
+        return new File(System.getProperty("graphs","src/InputGraphs"),graph);
+    }
+
+    /**
+     * Returns a topological sorting of the graph of the file with sorted adjacency lists, or null if the graph has
+     * a cycle.
+     */
+    static Vertex[] topolSorting(File f){
+        Vertex[] topOrder = GraphUtil.setTopologicalRank(Reader.ReadEdgeList(f));
+        if(topOrder!=null){
+            GraphUtil.sortAdjLists(topOrder);
+        }
+        return topOrder;
+    }
+}
@@ -0,0 +1,104 @@
+package graphhierarchies.benchmark;
+
+import graphhierarchies.chaindecomposition.Chain;
+import graphhierarchies.chaindecomposition.ChainDecomposition;
+import graphhierarchies.graph.Reader;
+import graphhierarchies.graph.Vertex;
+import graphhierarchies.transitiveclosure.AdjMatrix;
+import graphhierarchies.transitiveclosure.IndexingScheme;
+import graphhierarchies.transitiveclosure.OnlineDFS;
+import graphhierarchies.transitiveclosure.TransitiveClosure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of the construction of IndexingScheme and of the queries of the TransitiveClosure implementations.
+ * The queries pick pairs of vertices from a fixed random sequence and report their throughput.
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReachabilityBenchmark {
+    private static final int QUERIES = 1<<12;
+
+    @State(Scope.Benchmark)
+    public static class Closure {
+        @Param({"AdjMatrix","OnlineDFS","IndexingScheme"})
+        public String type;
+
+        TransitiveClosure tc;
+        Vertex[] sources;
+        Vertex[] targets;
+
+        @Setup
+        public void setup(GraphState state){
+            Vertex[] topOrder = state.topOrder;
+            if(type.equals("AdjMatrix")){
+                tc = new AdjMatrix(Reader.ReadEdgeList(state.file));
+                //AdjMatrix answers for the vertices of its own graph
+                topOrder = GraphState.topolSorting(state.file);
+            }else if(type.equals("OnlineDFS")){
+                tc = new OnlineDFS(topOrder);
+            }else{
+                tc = new IndexingScheme(ChainDecomposition.FastChainDecomposition(topOrder),topOrder);
+            }
+            Random random = new Random(1);
+            sources = new Vertex[QUERIES];
+            targets = new Vertex[QUERIES];
+            for(int i=0;i<QUERIES;++i){
+                sources[i] = topOrder[random.nextInt(topOrder.length)];
+                targets[i] = topOrder[random.nextInt(topOrder.length)];
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Decomposition {
+        LinkedList<Chain> chains;
+
+        @Setup
+        public void setup(GraphState state){
+            chains = ChainDecomposition.FastChainDecomposition(state.topOrder);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public IndexingScheme IndexingScheme(GraphState state, Decomposition decomposition){
+        return new IndexingScheme(decomposition.chains,state.topOrder);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean isReachable(Closure closure, Cursor cursor){
+        int i = cursor.next++&(QUERIES-1);
+        return closure.tc.isReachable(closure.sources[i],closure.targets[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public LinkedList<Vertex> getSuccessors(Closure closure, Cursor cursor){
+        return closure.tc.getSuccessors(closure.sources[cursor.next++&(QUERIES-1)]);
+    }
+}
@@ -0,0 +1,65 @@
+package graphhierarchies.benchmark;
+
+import graphhierarchies.graph.CSRGraph;
+import graphhierarchies.graph.DiGraph;
+import graphhierarchies.graph.GraphUtil;
+import graphhierarchies.graph.Reader;
+import graphhierarchies.graph.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of reading an edge list and of sorting the graph topologically.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark {
+
+    @State(Scope.Thread)
+    public static class Unsorted {
+        DiGraph dag;
+        Vertex[] topOrder;
+
+        //sortAdjLists sorts the lists in place, so every call gets lists in file order
+        @Setup(Level.Invocation)
+        public void setup(GraphState state){
+            dag = Reader.ReadEdgeList(state.file);
+            topOrder = GraphUtil.setTopologicalRank(dag);
+        }
+    }
+
+    @Benchmark
+    public DiGraph ReadEdgeList(GraphState state){
+        return Reader.ReadEdgeList(state.file);
+    }
+
+    @Benchmark
+    public CSRGraph ReadCSRGraph(GraphState state){
+        return Reader.ReadCSRGraph(state.file);
+    }
+
+    @Benchmark
+    public Vertex[] setTopologicalRank(Unsorted input){
+        return GraphUtil.setTopologicalRank(input.dag);
+    }
+
+    @Benchmark
+    public Vertex[] sortAdjLists(Unsorted input){
+        GraphUtil.sortAdjLists(input.topOrder);
+        return input.topOrder;
+    }
+}
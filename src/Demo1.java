@@ -35,5 +35,8 @@ public class Demo1 {
         //Creating a graph from a file.
         File f = new File("inputGraphs/graph1.csv");
         DiGraph dag2 = Reader.ReadEdgeList(f);
+
+        //Creating a graph from a stream, e.g. a pipe or a gzip-compressed export. The stream is parsed in blocks.
+        //DiGraph dag3 = Reader.ReadEdgeList(System.in);
     }
 }
@@ -4,6 +4,7 @@ import graphhierarchies.graph.DiGraph;
 import graphhierarchies.graph.GraphUtil;
 import graphhierarchies.graph.Reader;
 import graphhierarchies.graph.Vertex;
+import graphhierarchies.transitiveclosure.CondensedIndexingScheme;
 import graphhierarchies.transitiveclosure.IndexingScheme;
 import graphhierarchies.transitiveclosure.TransitiveClosure;
 
@@ -57,7 +58,16 @@ public class Demo2 {
                 System.out.println("Vertex "+source.getID()+" cannot reach vertex "+target.getID());
             }
         }else{
-            System.out.println(f.getName()+" is not a DAG.");
+            //A graph with cycles is handled through its condensation: every strongly connected component becomes
+            //a single vertex of a DAG and the queries are mapped through the components.
+            TransitiveClosure tc = new CondensedIndexingScheme(dag);
+            Vertex source = dag.getVertex(0);
+            Vertex target = dag.getVertex(5);
+            if(tc.isReachable(source,target)){
+                System.out.println("Vertex "+source.getID()+" can reach vertex "+target.getID());
+            }else{
+                System.out.println("Vertex "+source.getID()+" cannot reach vertex "+target.getID());
+            }
         }
     }
 }
@@ -2,6 +2,7 @@ import graphhierarchies.chaindecomposition.Chain;
 import graphhierarchies.chaindecomposition.ChainDecomposition;
 import graphhierarchies.graph.*;
 import graphhierarchies.transitiveclosure.IndexingScheme;
+import graphhierarchies.transitiveclosure.OnlineDFS;
 
 import java.io.File;
 import java.util.LinkedList;
@@ -32,7 +33,7 @@ public class Demo3 {
                 //LinkedList<Chain> decomposition_co = ChainDecomposition.COH(TopOrder);  //build a chain decomposition to utilize it for sparsification.
                 //ChainDecomposition.sparsify(decomposition_co,TopOrder);                 //sparsifies the graph utilizing a chain decomposition in linear time.
 
-                System.out.print("Graph: "+f.getName()+" nodes: "+dag.verticesSize()+" Edges:"+dag.getEdgeListRepr().size());
+                System.out.print("Graph: "+f.getName()+" nodes: "+dag.verticesSize()+" Edges:"+dag.edgesSize());
 
                 LinkedList<Chain> decomposition_fcd = ChainDecomposition.FastChainDecomposition(TopOrder);
                 System.out.print(" chains: "+decomposition_fcd.size());
@@ -43,6 +44,14 @@ public class Demo3 {
                 LinkedList<Edge> Etr = new LinkedList<>(); //In this list we add the transitive edges.
                 IndexingScheme tr = new IndexingScheme(decomposition_fcd,TopOrder,Etr); //we calculate the indexing scheme and we detect all transitive edges.
                 System.out.println(" Etr: "+Etr.size());
+
+                //Uncomment the next line to store the graph in the binary format, which keeps the topological order,
+                //so Reader.ReadBinaryGraph returns a graph that needs no sorting
+                //Writer.WriteBinaryGraph(new CSRGraph(TopOrder),new File(f.getName()+".bin"));
+                //Uncomment the next line to compare the parallel chain decomposition with the sequential one
+                //ChainDecomposition.printParallelReport(new CSRGraph(TopOrder),4);
+                //Uncomment the next line to compare the phases of Fulkerson method with and without a warm start
+                //ChainDecomposition.printWarmStartReport(TopOrder,new OnlineDFS(TopOrder));
             }else{
                 System.out.println(f.getName()+" is not acyclic");
             }
@@ -0,0 +1,206 @@
+package graphhierarchies.benchmark;
+
+import graphhierarchies.chaindecomposition.Chain;
+import graphhierarchies.chaindecomposition.ChainDecomposition;
+import graphhierarchies.chaindecomposition.ChainDecompositionResult;
+import graphhierarchies.generator.DAGGenerator;
+import graphhierarchies.graph.CSRGraph;
+import graphhierarchies.graph.GraphUtil;
+import graphhierarchies.graph.Reader;
+import graphhierarchies.graph.Vertex;
+import graphhierarchies.transitiveclosure.AdjMatrix;
+import graphhierarchies.transitiveclosure.CompressedIndexingScheme;
+import graphhierarchies.transitiveclosure.IndexingScheme;
+import graphhierarchies.transitiveclosure.OnlineDFS;
+import graphhierarchies.transitiveclosure.TransitiveClosure;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * The benchmarks of reading, topological sorting, chain decomposition, sparsification, indexing and reachability
+ * queries. Every input graph is measured with Harness and one line is printed per benchmark. The result column
+ * holds the number of chains for the decompositions, the number of edges for reading and sparsification and the
+ * number of positive answers (isReachable) or successors (getSuccessors) for the queries.
+ * <br>It is a quick runner that needs no build tool, the JMH benchmarks of the jmh folder (mvn -P jmh package) measure
+ * the same operations in forked JVMs.
+ * <br>Usage: DecompositionBenchmark [-warmup w] [-iterations i] [-time ms] [-generate vertices width density]
+ * [files or folders]. Every -generate adds a graph of DAGGenerator. Without graphs, the graphs of the InputGraphs
+ * folder are measured.
+ */
+public class DecompositionBenchmark {
+    private static final int QUERIES = 1<<12;
+    //the largest graph for the benchmarks that build the whole transitive closure (AdjMatrix, optChainDecomposition)
+    private static final int CLOSURE_LIMIT = 1<<13;
+
+    public static void main(String[] args) {
+        int warmup = 3, iterations = 5;
+        long time = 500;
+        LinkedList<File> files = new LinkedList<>();
+        for(int i=0;i<args.length;++i){
+            if(args[i].equals("-warmup")){
+                warmup = Integer.parseInt(args[++i]);
+            }else if(args[i].equals("-iterations")){
+                iterations = Integer.parseInt(args[++i]);
+            }else if(args[i].equals("-time")){
+                time = Long.parseLong(args[++i]);
+            }else if(args[i].equals("-generate")){
+                int n = Integer.parseInt(args[++i]);
+                int width = Integer.parseInt(args[++i]);
+                double density = Double.parseDouble(args[++i]);
+                files.add(generate(n,width,density));
+            }else{
+                listFiles(new File(args[i]),files);
+            }
+        }
+        if(files.isEmpty()){
+            listFiles(new File("InputGraphs"),files);
+        }
+        Harness harness = new Harness(warmup,iterations,time);
+        Harness.printHeader();
+        for(File f:files){
+            run(harness,f);
+        }
+    }
+
+    /**
+     * Writes a graph of DAGGenerator to a file of the temporary folder that is deleted on exit.
+     */
+    private static File generate(int n, int width, double density){
+        File f = new File(System.getProperty("java.io.tmpdir"),"generated-"+n+"-"+width+"-"+density+".csv");
+        f.deleteOnExit();
+        new DAGGenerator(1).setVertices(n).setWidth(width).setDensity(density).write(f);
+        return f;
+    }
+
+    private static void listFiles(File file, LinkedList<File> files){
+        if(file.isDirectory()){
+            File[] entries = file.listFiles();
+            Arrays.sort(entries);
+            for(File entry:entries){
+                listFiles(entry,files);
+            }
+        }else{
+            files.add(file);
+        }
+    }
+
+    /**
+     * Runs all benchmarks on the graph of the file.
+     */
+    public static void run(Harness harness, File f){
+        String name = f.getName()+" ";
+        if(GraphUtil.setTopologicalRank(Reader.ReadEdgeList(f))==null){
+            System.out.println(f.getName()+" is not acyclic");
+            return;
+        }
+
+        harness.run(name+"ReadEdgeList",() -> f,file -> Reader.ReadEdgeList(file).edgesSize());
+        harness.run(name+"ReadCSRGraph",() -> f,file -> Reader.ReadCSRGraph(file).edgesSize());
+        harness.run(name+"setTopologicalRank",() -> Reader.ReadEdgeList(f),dag -> GraphUtil.setTopologicalRank(dag).length);
+        harness.run(name+"setTopologicalRank(CSR)",() -> Reader.ReadCSRGraph(f),g -> GraphUtil.setTopologicalRank(g).length);
+        harness.run(name+"sortAdjLists",() -> topolSorting(f,false),topOrder -> {
+            GraphUtil.sortAdjLists(topOrder);
+            return topOrder.length;
+        });
+        harness.run(name+"sortAdjLists(CSR)",() -> csrGraph(f,false),g -> {
+            GraphUtil.sortAdjLists(g);
+            return g.verticesSize();
+        });
+
+        Vertex[] topOrder = topolSorting(f,true);
+        CSRGraph g = csrGraph(f,true);
+        harness.run(name+"COH",() -> topOrder,t -> ChainDecomposition.COH(t).size());
+        harness.run(name+"NOH",() -> topOrder,t -> ChainDecomposition.NOH(t).size());
+        harness.run(name+"NOH_variation",() -> topOrder,t -> ChainDecomposition.NOH_variation(t).size());
+        harness.run(name+"FastChainDecomposition",() -> topOrder,t -> ChainDecomposition.FastChainDecomposition(t).size());
+        harness.run(name+"FastChainDecomposition(CSR)",() -> g,c -> ChainDecomposition.FastChainDecomposition(c).chainsSize());
+        harness.run(name+"ChainConcatenation",() -> ChainDecomposition.FastChainDecomposition(topOrder),decomposition -> {
+            ChainDecomposition.ChainConcatenation(decomposition,topOrder);
+            return decomposition.size();
+        });
+        harness.run(name+"ChainConcatenation(CSR)",() -> ChainDecomposition.FastChainDecomposition(g),decomposition -> {
+            ChainDecomposition.ChainConcatenation(decomposition,g);
+            return decomposition.chainsSize();
+        });
+        if(topOrder.length<=CLOSURE_LIMIT){
+            harness.run(name+"optChainDecomposition",() -> topOrder,t -> ChainDecomposition.optChainDecomposition(t).size());
+        }
+        harness.run(name+"optChainDecomposition(CSR)",() -> g,c -> ChainDecomposition.optChainDecomposition(c).chainsSize());
+        harness.run(name+"MinFlowChainDecomposition(CSR)",() -> g,c -> ChainDecomposition.MinFlowChainDecomposition(c).chainsSize());
+        harness.run(name+"sparsify",() -> topolSorting(f,true),t -> {
+            ChainDecomposition.sparsify(ChainDecomposition.COH(t),t);
+            return edgesSize(t);
+        });
+        harness.run(name+"sparsify(CSR)",() -> csrGraph(f,true),c -> {
+            ChainDecomposition.sparsify(ChainDecomposition.FastChainDecomposition(c),c);
+            return c.edgesSize();
+        });
+
+        LinkedList<Chain> decomposition = ChainDecomposition.FastChainDecomposition(topOrder);
+        ChainDecompositionResult result = ChainDecomposition.FastChainDecomposition(g);
+        harness.run(name+"IndexingScheme",() -> decomposition,d -> new IndexingScheme(d,topOrder).getIndex(0,0));
+        harness.run(name+"IndexingScheme(CSR)",() -> result,d -> new IndexingScheme(d,g).getIndex(0,0));
+        harness.run(name+"CompressedIndexingScheme(CSR)",() -> result,d -> new CompressedIndexingScheme(d,g).getIndex(0,0));
+
+        //the queries pick random pairs of vertices
+        Random random = new Random(1);
+        int n = topOrder.length;
+        int[] sources = random.ints(QUERIES,0,n).toArray();
+        int[] targets = random.ints(QUERIES,0,n).toArray();
+        LinkedList<TransitiveClosure> solutions = new LinkedList<>();
+        if(n<=CLOSURE_LIMIT){
+            solutions.add(new AdjMatrix(Reader.ReadEdgeList(f)));
+        }
+        solutions.add(new OnlineDFS(topOrder));
+        solutions.add(new IndexingScheme(decomposition,topOrder));
+        for(TransitiveClosure tc:solutions){
+            String type = tc.getClass().getSimpleName();
+            harness.runThroughput(name+type+".isReachable",i ->
+                    tc.isReachable(topOrder[sources[i&(QUERIES-1)]],topOrder[targets[i&(QUERIES-1)]]) ? 1 : 0);
+            harness.runThroughput(name+type+".getSuccessors",i ->
+                    tc.getSuccessors(topOrder[sources[i&(QUERIES-1)]]).size());
+        }
+        IndexingScheme scheme = new IndexingScheme(result,g);
+        harness.runThroughput(name+"IndexingScheme(CSR).isReachable",i ->
+                scheme.isReachable(sources[i&(QUERIES-1)],targets[i&(QUERIES-1)]) ? 1 : 0);
+        CompressedIndexingScheme compressed = new CompressedIndexingScheme(scheme);
+        harness.runThroughput(name+"CompressedIndexingScheme.isReachable",i ->
+                compressed.isReachable(sources[i&(QUERIES-1)],targets[i&(QUERIES-1)]) ? 1 : 0);
+        CompressedIndexingScheme.printCompressionReport(scheme);
+    }
+
+    /**
+     * Returns a topological sorting of the graph of the file. The adjacency lists are sorted if isSorted is true.
+     */
+    private static Vertex[] topolSorting(File f, boolean isSorted){
+        Vertex[] topOrder = GraphUtil.setTopologicalRank(Reader.ReadEdgeList(f));
+        if(isSorted){
+            GraphUtil.sortAdjLists(topOrder);
+        }
+        return topOrder;
+    }
+
+    /**
+     * Returns the graph of the file in CSR form, indexed by topological rank. The adjacency lists are sorted if
+     * isSorted is true.
+     */
+    private static CSRGraph csrGraph(File f, boolean isSorted){
+        CSRGraph g = Reader.ReadCSRGraph(f);
+        GraphUtil.setTopologicalRank(g);
+        if(isSorted){
+            GraphUtil.sortAdjLists(g);
+        }
+        return g;
+    }
+
+    private static long edgesSize(Vertex[] topOrder){
+        long m = 0;
+        for(Vertex v:topOrder){
+            m += v.getAdjTargets().size();
+        }
+        return m;
+    }
+}
@@ -0,0 +1,132 @@
+package graphhierarchies.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntToLongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * The class measures the running time and the allocations of an operation. Every measurement runs some warmup
+ * iterations, that are not reported, and then the measured iterations. The state of every iteration is created
+ * by a setup function outside of the measurement, so operations that modify their input (e.g. sparsify) start
+ * from the same state every time.
+ * <br>The allocations are read from the ThreadMXBean of the JVM and count only the calling thread, hence, the
+ * allocations of parallel operations on the fork-join pool are not reported. Every operation returns a number
+ * (e.g. the number of chains), that is printed and keeps the JIT compiler from removing the operation.
+ */
+public class Harness {
+    private static final int CHECK_INTERVAL = 1<<8;
+
+    private final int warmup;
+    private final int iterations;
+    private final long queryTime;
+    private final com.sun.management.ThreadMXBean threads;
+    private long sink = 0;
+
+    /**
+     * @param warmup the number of iterations before the measurement
+     * @param iterations the number of measured iterations
+     * @param queryTime the duration of every throughput iteration in milliseconds
+     */
+    public Harness(int warmup, int iterations, long queryTime){
+        this.warmup = warmup;
+        this.iterations = iterations;
+        this.queryTime = queryTime*1000000;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()){
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }else{
+            threads = null;
+        }
+    }
+
+    public static void printHeader(){
+        System.out.println(String.format("%-48s %12s %12s %14s %12s %10s %12s","benchmark","ms/op","min ms/op","ops/s","MB/op","MB/s","result"));
+    }
+
+    /**
+     * Measures the average and the minimum time of an operation and the memory it allocates per call.
+     * @param name the name of the benchmark
+     * @param setup creates the input of every iteration
+     * @param operation the measured operation, it returns the result that is printed
+     */
+    public <S> void run(String name, Supplier<S> setup, ToLongFunction<S> operation){
+        for(int i=0;i<warmup;++i){
+            sink += operation.applyAsLong(setup.get());
+        }
+        long total = 0, min = Long.MAX_VALUE, allocated = 0, result = 0;
+        for(int i=0;i<iterations;++i){
+            S state = setup.get();
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            result = operation.applyAsLong(state);
+            long time = System.nanoTime()-start;
+            allocated += allocatedBytes()-bytes;
+            total += time;
+            min = Math.min(min,time);
+        }
+        sink += result;
+        print(name,total/1e6/iterations,min/1e6,allocated/1e6/iterations,result);
+    }
+
+    /**
+     * Measures the throughput of a query. The query is called with 0,1,2,... until queryTime elapses, hence, it
+     * should pick its input from a precomputed array. It prints the average time per call and the time per call of
+     * the fastest iteration.
+     * @param name the name of the benchmark
+     * @param query the measured query, it returns a number that is summed up and printed
+     */
+    public void runThroughput(String name, IntToLongFunction query){
+        for(int i=0;i<warmup;++i){
+            sink += throughput(query)[1];
+        }
+        long calls = 0, total = 0, allocated = 0, result = 0;
+        double min = Double.MAX_VALUE;
+        for(int i=0;i<iterations;++i){
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            long[] count = throughput(query);
+            long time = System.nanoTime()-start;
+            allocated += allocatedBytes()-bytes;
+            calls += count[0];
+            total += time;
+            min = Math.min(min,(double)time/count[0]);
+            result = count[1];
+        }
+        sink += result;
+        print(name,total/1e6/calls,min/1e6,allocated/1e6/calls,result);
+    }
+
+    private void print(String name, double ms, double min, double mb, long result){
+        if(threads==null){
+            mb = Double.NaN;
+        }
+        System.out.println(String.format("%-48s %12.6f %12.6f %14.1f %12.6f %10.1f %12d",name,ms,min,1000/ms,mb,mb/ms*1000,result));
+    }
+
+    /**
+     * Calls the query until queryTime elapses. It returns the number of calls and the sum of the results.
+     */
+    private long[] throughput(IntToLongFunction query){
+        long end = System.nanoTime()+queryTime;
+        long calls = 0, result = 0;
+        do{
+            for(int i=0;i<CHECK_INTERVAL;++i){
+                result += query.applyAsLong((int)calls++);
+            }
+        }while(System.nanoTime()<end);
+        return new long[]{calls,result};
+    }
+
+    private long allocatedBytes(){
+        return threads==null ? 0 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Returns the sum of all results, so that no operation is dead code.
+     */
+    public long getSink(){
+        return sink;
+    }
+}
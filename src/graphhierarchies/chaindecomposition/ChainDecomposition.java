@@ -1,13 +1,17 @@
 package graphhierarchies.chaindecomposition;
 
+import graphhierarchies.graph.CSRGraph;
 import graphhierarchies.graph.Vertex;
+import graphhierarchies.transitiveclosure.IndexingScheme;
 import graphhierarchies.transitiveclosure.OnlineDFS;
 import graphhierarchies.transitiveclosure.TransitiveClosure;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.Stack;
+import java.util.stream.IntStream;
 
 /**
  * This class contains static methods that perform path/chain decomposition and path/chain concatenations.
@@ -57,6 +61,51 @@ public class ChainDecomposition {
 }
 
 
+    /**
+     * The primitive array version of reversedDFSlookup. It returns the last vertex of a chain that reaches
+     * the root vertex or -1 if the search fails. The search skips every vertex whose rank is lower than lo.
+     *
+     * @param root the starting vertex of the search
+     * @param lo the lowest topological rank the search may visit
+     * @param g the graph indexed by topological rank
+     * @param iterators indicate, for every vertex, the position of the next unexplored adjacent source
+     * @param isVisited indicates if a vertex is visited
+     * @param isLast indicates if a vertex is the last vertex of its chain
+     * @param stack a reusable stack that can hold all the vertices the search may visit
+     * @return -1 if the search fails or the last vertex of a chain if the search succeeds
+     */
+    private static int reversedDFSlookup(int root,int lo,CSRGraph g,int[] iterators,boolean[] isVisited,boolean[] isLast,int[] stack){
+        int[] sourceOffsets = g.getSourceOffsets();
+        int[] sources = g.getSources();
+        int top = 0;
+        stack[top++] = root;
+        while (top>0) {
+            int current = stack[top-1];
+            int end = sourceOffsets[current+1];
+            while (true) {
+                if (iterators[current]<end) {
+                    int adjSource = sources[iterators[current]++];
+                    if (adjSource>=lo && !isVisited[adjSource]) {
+                        if(isLast[adjSource]){
+                            for(int i=0;i<top;++i){
+                                isVisited[stack[i]] = false;
+                                iterators[stack[i]]--;
+                            }
+                            return adjSource;
+                        }
+                        stack[top++] = adjSource;
+                        isVisited[adjSource] = true;
+                        break;
+                    }
+                }else{
+                    top--;
+                    break;
+                }
+            }
+        }
+        return -1;
+    }
+
     /**
      * Returns a path decomposition of the graph. It is the implementation of the Chain Order Heuristic
      * and runs in linear time.
@@ -240,6 +289,112 @@ public class ChainDecomposition {
         return decomposition;
     }
 
+    /**
+     * Returns a chain decomposition of a graph in CSR form. It runs in O(|E|+c*l). The chains are numbered in
+     * the order they are created and the vertices of every chain are in ascending topological order.
+     *
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     * @return a chain decomposition of the graph
+     */
+    public static ChainDecompositionResult FastChainDecomposition(CSRGraph g){
+        int n = g.verticesSize();
+        int[] chainOf = new int[n];
+        decomposeBand(g,0,n,chainOf,new boolean[n],new boolean[n],new int[n]);
+        return new ChainDecompositionResult(chainOf);
+    }
+
+    /**
+     * Returns a chain decomposition of a graph in CSR form that is computed in parallel. The topological order is
+     * split into bands of consecutive ranks with about the same number of edges. Every band is decomposed
+     * independently, as FastChainDecomposition does, on the common fork-join pool, considering only the edges inside
+     * the band. Then, the chains are stitched across the band boundaries with ChainConcatenation. The chains are
+     * numbered in ascending order of their first vertex. The number of chains may differ slightly from the number
+     * that FastChainDecomposition returns (see printParallelReport).
+     *
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     * @param bands the number of bands
+     * @return a chain decomposition of the graph
+     */
+    public static ChainDecompositionResult ParallelChainDecomposition(CSRGraph g, int bands){
+        int n = g.verticesSize();
+        int[] targetOffsets = g.getTargetOffsets();
+        int m = g.edgesSize();
+        bands = Math.max(1,Math.min(bands,n));
+        int[] bounds = new int[bands+1];
+        for(int b=1;b<bands;++b){
+            int pos = Arrays.binarySearch(targetOffsets,(int)((long)m*b/bands));
+            bounds[b] = Math.min(n,Math.max(bounds[b-1],pos>=0 ? pos : -pos-2));
+        }
+        bounds[bands] = n;
+
+        int[] chainOf = new int[n];
+        boolean[] isLast = new boolean[n];
+        boolean[] isVisited = new boolean[n];
+        int[] iterators = new int[n];
+        IntStream.range(0,bands).parallel().forEach(b -> {
+            int lo = bounds[b], hi = bounds[b+1];
+            decomposeBand(g,lo,hi,chainOf,isLast,isVisited,iterators);
+        });
+        ChainDecompositionResult decomposition = new ChainDecompositionResult(chainOf);
+        if(bands>1){
+            ChainConcatenation(decomposition,g);
+        }
+        return decomposition;
+    }
+
+    /**
+     * Decomposes the subgraph that the vertices with rank in [lo,hi) induce. Every chain is named after its
+     * first vertex. The method writes only the entries of the arrays that belong to the vertices of the band.
+     */
+    private static void decomposeBand(CSRGraph g,int lo,int hi,int[] chainOf,boolean[] isLast,boolean[] isVisited,int[] iterators){
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        int[] sourceOffsets = g.getSourceOffsets();
+        int[] sources = g.getSources();
+        int[] stack = new int[hi-lo];
+        Arrays.fill(chainOf,lo,hi,-1);
+        System.arraycopy(sourceOffsets,lo,iterators,lo,hi-lo);
+
+        for(int v=lo;v<hi;++v){
+            int min_outdegree = Integer.MAX_VALUE;
+            int toAdd = -1;
+            boolean belongToChain = chainOf[v] != -1;
+            if(!belongToChain){
+                for(int j=sourceOffsets[v];j<sourceOffsets[v+1];++j) {  //choose the immediate predecessor with the lowest outdegree
+                    int adjSource = sources[j];
+                    if (adjSource>=lo && isLast[adjSource]) {
+                        int adjOutdegree = g.outDegree(adjSource);
+                        if (adjOutdegree < min_outdegree) {
+                            min_outdegree = adjOutdegree;
+                            toAdd = adjSource;
+                        }
+                    }
+                }
+                if(toAdd==-1){
+                    toAdd = reversedDFSlookup(v,lo,g,iterators,isVisited,isLast,stack);
+                }
+            }
+            if(toAdd != -1){
+                chainOf[v] = chainOf[toAdd];
+                isLast[toAdd] = false;
+                isLast[v] = true;
+            }else if(!belongToChain){
+                chainOf[v] = v;
+                isLast[v] = true;
+            }
+
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                int t = targets[j];
+                if(t<hi && g.inDegree(t)==1){
+                    chainOf[t] = chainOf[v];
+                    isLast[v] = false;
+                    isLast[t] = true;
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      *It performs path and chain concatenations of the given decomposition. It runs in O(|E|+c*l) time.
      *
@@ -276,25 +431,149 @@ public class ChainDecomposition {
     }
 
     /**
-     * Returns a chain decomposition with minimum cardinality using Fulkerson Method.
+     * It performs chain concatenations of the given decomposition of a graph in CSR form. It runs in O(|E|+c*l)
+     * time. The chains are visited in their order and every concatenation takes constant time.
+     *
+     * @param decomposition a chain decomposition of the graph
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     */
+    public static void ChainConcatenation(ChainDecompositionResult decomposition,CSRGraph g){
+        int n = g.verticesSize();
+        int k = decomposition.chainsSize();
+        int[] chainOf = decomposition.getChainOf();
+        boolean[] isLast = new boolean[n];
+        for(int c=0;c<k;++c){
+            isLast[decomposition.getLast(c)] = true;
+        }
+
+        boolean[] isVisited = new boolean[n];
+        int[] iterators = Arrays.copyOf(g.getSourceOffsets(),n);
+        int[] stack = new int[n];
+        int[] merged = new int[k]; //the chain every chain is appended to
+        for(int c=0;c<k;++c){
+            int tail = reversedDFSlookup(decomposition.getFirst(c),0,g,iterators,isVisited,isLast,stack);
+            if(tail!=-1){
+                merged[c] = merged[chainOf[tail]];
+                decomposition.concatenate(merged[c],c);
+                isLast[tail] = false;
+            }else{
+                merged[c] = c;
+            }
+        }
+    }
+
+    /**
+     * Prints the number of chains and the running times of FastChainDecomposition and ParallelChainDecomposition.
+     *
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     * @param bands the number of bands of the parallel decomposition
+     */
+    public static void printParallelReport(CSRGraph g, int bands){
+        long start = System.nanoTime();
+        int k = FastChainDecomposition(g).chainsSize();
+        long sequentialTime = System.nanoTime()-start;
+        start = System.nanoTime();
+        int kp = ParallelChainDecomposition(g,bands).chainsSize();
+        long parallelTime = System.nanoTime()-start;
+
+        System.out.println("bands: "+bands+" sequential chains: "+k+" ("+sequentialTime/1000000+" ms) parallel chains: "
+                +kp+" ("+parallelTime/1000000+" ms) difference: "+(kp-k)
+                +String.format(" (%+.2f%%)",k==0 ? 0.0 : 100.0*(kp-k)/k));
+    }
+
+    /**
+     * Returns a chain decomposition with minimum cardinality using Fulkerson Method. The matching starts from the
+     * consecutive vertices of the chains of FastChainDecomposition.
      *
      * @param topolSorting a topological sorting of the graph
      * @param tc a transitive closure solution for the first step of fulkerson method
      * @return a chain decomposition with minimum cardinality
      */
     public static LinkedList<Chain> optChainDecomposition(Vertex[] topolSorting, TransitiveClosure tc ){
-        return FulkersonMethod(topolSorting,tc);
+        return FulkersonMethod(topolSorting,tc,FastChainDecomposition(topolSorting));
     }
 
     /**
-     *Returns a chain decomposition with minimum cardinality using Fulkerson Method.
+     * Returns a chain decomposition with minimum cardinality using Fulkerson Method. The matching starts from the
+     * consecutive vertices of the chains of the given decomposition, hence, only c-w augmenting paths need to be
+     * found, where c is the number of chains and w the width.
+     *
+     * @param topolSorting a topological sorting of the graph
+     * @param tc a transitive closure solution for the first step of fulkerson method
+     * @param decomposition a chain decomposition of the graph, or null to start from an empty matching
+     * @return a chain decomposition with minimum cardinality
+     */
+    public static LinkedList<Chain> optChainDecomposition(Vertex[] topolSorting, TransitiveClosure tc, LinkedList<Chain> decomposition){
+        return FulkersonMethod(topolSorting,tc,decomposition);
+    }
+
+    /**
+     *Returns a chain decomposition with minimum cardinality using Fulkerson Method. The matching starts from the
+     * consecutive vertices of the chains of FastChainDecomposition.
      *
      * @param topolSorting a topological sorting of the graph
      * @return a chain decomposition with minimum cardinality
      */
     public static LinkedList<Chain> optChainDecomposition(Vertex[] topolSorting){
-        OnlineDFS tc = new OnlineDFS();
-        return FulkersonMethod(topolSorting,tc);
+        OnlineDFS tc = new OnlineDFS(topolSorting);
+        return FulkersonMethod(topolSorting,tc,FastChainDecomposition(topolSorting));
+    }
+
+    /**
+     * Prints the number of phases and the running time of Hopcroft-Karp in Fulkerson Method when it starts from an
+     * empty matching and when it starts from the chains of FastChainDecomposition.
+     *
+     * @param topolSorting a topological sorting of the graph
+     * @param tc a transitive closure solution for the first step of fulkerson method
+     */
+    public static void printWarmStartReport(Vertex[] topolSorting, TransitiveClosure tc){
+        long start = System.nanoTime();
+        LinkedList<Chain> decomposition = FastChainDecomposition(topolSorting);
+        long heuristicTime = System.nanoTime()-start;
+
+        MaximalMatching.BipGraph cold = closureGraph(topolSorting,tc);
+        start = System.nanoTime();
+        int M = cold.hopcroftKarp();
+        long coldTime = System.nanoTime()-start;
+
+        MaximalMatching.BipGraph warm = closureGraph(topolSorting,tc);
+        seedMatching(warm,decomposition);
+        start = System.nanoTime();
+        warm.hopcroftKarp();
+        long warmTime = System.nanoTime()-start;
+
+        System.out.println("chains: "+decomposition.size()+" width: "+(topolSorting.length-M)
+                +" cold start: "+cold.getPhases()+" phases ("+coldTime/1000000+" ms)"
+                +" warm start: "+warm.getPhases()+" phases ("+warmTime/1000000+" ms + "+heuristicTime/1000000+" ms heuristic)");
+    }
+
+    /**
+     * Returns the bipartite graph of Fulkerson Method, that has an edge (u,v) if u reaches v. The vertex with rank r
+     * is vertex r+1 on both sides.
+     */
+    private static MaximalMatching.BipGraph closureGraph(Vertex[] topolSorting, TransitiveClosure tc){
+        MaximalMatching.BipGraph bg = new MaximalMatching.BipGraph(topolSorting.length, topolSorting.length, true);
+        for(Vertex v:topolSorting){
+            for(Vertex s:tc.getSuccessors(v)){
+                bg.addLink( v.getTopolRank()+1, s.getTopolRank()+1 );
+            }
+        }
+        return bg;
+    }
+
+    /**
+     * Adds the consecutive vertices of every chain to the initial matching.
+     */
+    private static void seedMatching(MaximalMatching.BipGraph bg, LinkedList<Chain> decomposition){
+        for(Chain C:decomposition){
+            Vertex previous = null;
+            for(Vertex v:C.getVertices()){
+                if(previous!=null){
+                    bg.match(previous.getTopolRank()+1,v.getTopolRank()+1);
+                }
+                previous = v;
+            }
+        }
     }
 
     /**
@@ -302,20 +581,19 @@ public class ChainDecomposition {
      *
      * @param topolSorting a topological sorting of the graph
      * @param tc a transitive closure solution for the first step of fulkerson method
+     * @param heuristic a chain decomposition whose chains give the initial matching, or null
      * @return a chain decomposition with minimum cardinality
      */
-    static LinkedList<Chain> FulkersonMethod(Vertex[] topolSorting, TransitiveClosure tc){
+    static LinkedList<Chain> FulkersonMethod(Vertex[] topolSorting, TransitiveClosure tc, LinkedList<Chain> heuristic){
         LinkedList<Chain> decomposition = new LinkedList<>();
 
-        MaximalMatching.BipGraph bg = new MaximalMatching.BipGraph(topolSorting.length, topolSorting.length);
+        MaximalMatching.BipGraph bg = closureGraph(topolSorting,tc);
         HashMap<Integer,Vertex> id_v = new HashMap<>();
-
         for(Vertex v:topolSorting){
-            LinkedList<Vertex> successors = tc.getSuccessors(v);
             id_v.put(v.getTopolRank()+1,v);
-            for(Vertex s:successors){
-                bg.addLink( v.getTopolRank()+1, s.getTopolRank()+1 );
-            }
+        }
+        if(heuristic!=null){
+            seedMatching(bg,heuristic);
         }
 
         int M = bg.hopcroftKarp();
@@ -345,11 +623,346 @@ public class ChainDecomposition {
             }
         }
 
-        assert width!=decomposition.size() : "Bug: Fulkerson method chain decomposition size is not equal to the width";
+        assert width==decomposition.size() : "Bug: Fulkerson method chain decomposition size is not equal to the width";
 
         return decomposition;
     }
 
+    /**
+     * Returns a chain decomposition of a graph in CSR form with minimum cardinality using Fulkerson Method, without
+     * materializing the transitive closure (see optChainDecomposition(ChainDecompositionResult,IndexingScheme)).
+     * The indexing scheme is built on a FastChainDecomposition of the graph.
+     *
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     * @return a chain decomposition with minimum cardinality
+     */
+    public static ChainDecompositionResult optChainDecomposition(CSRGraph g){
+        ChainDecompositionResult decomposition = FastChainDecomposition(g);
+        return optChainDecomposition(decomposition,new IndexingScheme(decomposition,g));
+    }
+
+    /**
+     * Returns a chain decomposition with minimum cardinality using Fulkerson Method, without materializing the
+     * transitive closure. The bipartite graph of the method has an edge (u,v) if u reaches v. Here, the edges are
+     * derived on demand: the successors of u in chain c are the vertices of c from position scheme.getIndex(u,c)
+     * on, hence, a search that leaves u only needs to find the first unvisited vertex of every such suffix. The
+     * visited vertices of every chain are skipped with a union-find structure. The matching starts from the
+     * consecutive vertices of the given decomposition, so only c-w augmenting paths need to be found, where c is
+     * the number of chains of the given decomposition and w the width. It needs O(|V|*c) memory for the indices
+     * and O(|V|*c) time per phase of augmentations.
+     *
+     * @param decomposition a chain decomposition of the graph
+     * @param scheme an indexing scheme built on the same decomposition
+     * @return a chain decomposition with minimum cardinality
+     */
+    public static ChainDecompositionResult optChainDecomposition(ChainDecompositionResult decomposition, IndexingScheme scheme){
+        int n = decomposition.verticesSize();
+        int kc = decomposition.chainsSize();
+        int[] members = decomposition.getMembers();
+        int[] chainOffsets = decomposition.getChainOffsets();
+
+        //every vertex is matched to the next vertex of its chain
+        int[] pairU = new int[n];
+        int[] pairV = new int[n];
+        Arrays.fill(pairU,-1);
+        Arrays.fill(pairV,-1);
+        for(int c=0;c<kc;++c){
+            for(int j=chainOffsets[c];j<chainOffsets[c+1]-1;++j){
+                pairU[members[j]] = members[j+1];
+                pairV[members[j+1]] = members[j];
+            }
+        }
+
+        int[] next = new int[n+1];      //union-find over the positions of members, skips the visited vertices
+        int[] chainIt = new int[n];     //the next chain a search from a vertex tries
+        int[] stack = new int[n];
+        int[] right = new int[n];       //the vertex that every vertex of the stack is matched to on augmentation
+        boolean augmented = true;
+        while(augmented){
+            augmented = false;
+            for(int i=0;i<=n;++i){
+                next[i] = i;
+            }
+            for(int root=0;root<n;++root){
+                if(pairU[root]!=-1){
+                    continue;
+                }
+                int top = 0;
+                stack[top++] = root;
+                chainIt[root] = 0;
+                while(top>0){
+                    int u = stack[top-1];
+                    int v = -1;
+                    while(chainIt[u]<kc){
+                        int c = chainIt[u];
+                        int index = scheme.getIndex(u,c);
+                        int p = index==Integer.MAX_VALUE ? chainOffsets[c+1] : find(next,chainOffsets[c]+index);
+                        if(p<chainOffsets[c+1]){
+                            next[p] = p+1;
+                            v = members[p];
+                            break;
+                        }
+                        ++chainIt[u];
+                    }
+                    if(v==-1){
+                        --top;
+                    }else if(pairV[v]==-1){ //augmenting path
+                        right[top-1] = v;
+                        for(int i=top-1;i>=0;--i){
+                            pairU[stack[i]] = right[i];
+                            pairV[right[i]] = stack[i];
+                        }
+                        augmented = true;
+                        break;
+                    }else{
+                        right[top-1] = v;
+                        stack[top++] = pairV[v];
+                        chainIt[pairV[v]] = 0;
+                    }
+                }
+            }
+        }
+
+        //build chains
+        int[] chainOf = new int[n];
+        for(int v=0;v<n;++v){
+            if(pairV[v]==-1){
+                for(int u=v;u!=-1;u=pairU[u]){
+                    chainOf[u] = v;
+                }
+            }
+        }
+        return new ChainDecompositionResult(chainOf);
+    }
+
+    private static int find(int[] next,int p){
+        int root = p;
+        while(next[root]!=root){
+            root = next[root];
+        }
+        while(next[p]!=root){
+            int tmp = next[p];
+            next[p] = root;
+            p = tmp;
+        }
+        return root;
+    }
+
+    /**
+     * Returns a chain decomposition of a graph in CSR form with minimum cardinality, computed with a minimum flow
+     * on the graph itself instead of its transitive closure (see MinFlowChainDecomposition(CSRGraph,ChainDecompositionResult)).
+     * The initial flow comes from FastChainDecomposition.
+     *
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     * @return a chain decomposition with minimum cardinality
+     */
+    public static ChainDecompositionResult MinFlowChainDecomposition(CSRGraph g){
+        return MinFlowChainDecomposition(g,FastChainDecomposition(g));
+    }
+
+    /**
+     * Returns a chain decomposition of a graph in CSR form with minimum cardinality, computed with a minimum flow.
+     * Every vertex v is split into v_in and v_out, joined by an edge whose flow must be at least one. Every edge
+     * (u,v) of the graph becomes (u_out,v_in), and a source s and a sink t are joined to every v_in and v_out. A flow
+     * of value k is a set of k paths of the graph that cover all vertices, hence, the minimum flow is the width.
+     * <br>The initial flow follows the chains of the given decomposition, joining consecutive vertices of a chain
+     * with a path of the graph. Then, every search in the residual graph from t to s reduces the flow by one, so
+     * there are c-w+1 searches of O(|V|+|E|) time each, where c is the number of chains of the given decomposition
+     * and w the width. The memory is O(|V|+|E|). Sparsifying the graph first (sparsify) makes the searches faster.
+     * Finally, the flow is split into paths and every vertex joins the chain of the first path that covers it.
+     *
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     * @param decomposition a chain decomposition of the graph
+     * @return a chain decomposition with minimum cardinality
+     */
+    public static ChainDecompositionResult MinFlowChainDecomposition(CSRGraph g, ChainDecompositionResult decomposition){
+        int n = g.verticesSize();
+        int m = g.edgesSize();
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+
+        //the incoming edges of every vertex, as indices of the targets array
+        int[] inOffsets = new int[n+1];
+        for(int j=0;j<m;++j){
+            inOffsets[targets[j]+1]++;
+        }
+        for(int v=0;v<n;++v){
+            inOffsets[v+1] += inOffsets[v];
+        }
+        int[] inEdges = new int[m];
+        int[] edgeSources = new int[m];
+        int[] pos = Arrays.copyOf(inOffsets,n);
+        for(int u=0;u<n;++u){
+            for(int j=targetOffsets[u];j<targetOffsets[u+1];++j){
+                edgeSources[j] = u;
+                inEdges[pos[targets[j]]++] = j;
+            }
+        }
+
+        int[] vertexFlow = new int[n];  //v_in -> v_out, at least one
+        int[] edgeFlow = new int[m];    //u_out -> v_in
+        int[] sourceFlow = new int[n];  //s -> v_in
+        int[] sinkFlow = new int[n];    //v_out -> t
+        int[] marks = new int[2*n];
+        int[] parent = new int[n];      //the edge a path search reached every vertex with
+        int[] stack = new int[2*n];
+        int[] iterators = new int[2*n];
+        int epoch = 0;
+
+        //the initial flow
+        int[] members = decomposition.getMembers();
+        int[] chainOffsets = decomposition.getChainOffsets();
+        for(int c=0;c<decomposition.chainsSize();++c){
+            sourceFlow[members[chainOffsets[c]]]++;
+            sinkFlow[members[chainOffsets[c+1]-1]]++;
+            for(int i=chainOffsets[c];i<chainOffsets[c+1];++i){
+                vertexFlow[members[i]]++;
+            }
+            for(int i=chainOffsets[c];i<chainOffsets[c+1]-1;++i){
+                int a = members[i], b = members[i+1];
+                int edge = -1;
+                for(int j=targetOffsets[a];j<targetOffsets[a+1];++j){
+                    if(targets[j]==b){
+                        edge = j;
+                        break;
+                    }
+                }
+                if(edge!=-1){
+                    edgeFlow[edge]++;
+                    continue;
+                }
+                //a path from a to b, that visits only vertices with rank in (a,b]
+                ++epoch;
+                int top = 0;
+                stack[top++] = a;
+                marks[a] = epoch;
+                while(top>0 && marks[b]!=epoch){
+                    int v = stack[--top];
+                    for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                        int w = targets[j];
+                        if(w<=b && marks[w]!=epoch){
+                            marks[w] = epoch;
+                            parent[w] = j;
+                            stack[top++] = w;
+                        }
+                    }
+                }
+                for(int w=b;w!=a;){
+                    edgeFlow[parent[w]]++;
+                    w = edgeSources[parent[w]];
+                    if(w!=a){
+                        vertexFlow[w]++;
+                    }
+                }
+            }
+        }
+
+        //reduce the flow with searches from t to s in the residual graph. Node 2v is v_in and node 2v+1 is v_out.
+        boolean reduced = true;
+        while(reduced){
+            reduced = false;
+            ++epoch;
+            for(int root=0;root<n && !reduced;++root){
+                if(sinkFlow[root]==0 || marks[2*root+1]==epoch){
+                    continue;
+                }
+                int top = 0;
+                stack[top++] = 2*root+1;
+                marks[2*root+1] = epoch;
+                iterators[2*root+1] = 0;
+                while(top>0){
+                    int x = stack[top-1];
+                    int v = x>>1;
+                    int i = iterators[x]++;
+                    int y = -1;
+                    if((x&1)==1){   //v_out: forward to the w_in of every target w, backward to v_in
+                        int outDegree = targetOffsets[v+1]-targetOffsets[v];
+                        if(i<outDegree){
+                            y = 2*targets[targetOffsets[v]+i];
+                        }else if(i==outDegree && vertexFlow[v]>1){
+                            y = 2*v;
+                        }else if(i>outDegree){
+                            --top;
+                            continue;
+                        }
+                    }else{          //v_in: backward to s, forward to v_out, backward to the u_out of every source u
+                        if(i==0 && sourceFlow[v]>0){
+                            reduced = true;
+                            break;
+                        }else if(i==1){
+                            y = 2*v+1;
+                        }else if(i>=2 && i-2<inOffsets[v+1]-inOffsets[v]){
+                            int k = inOffsets[v]+i-2;
+                            if(edgeFlow[inEdges[k]]>0){
+                                y = 2*edgeSources[inEdges[k]]+1;
+                            }
+                        }else if(i>=2){
+                            --top;
+                            continue;
+                        }
+                    }
+                    if(y!=-1 && marks[y]!=epoch){
+                        marks[y] = epoch;
+                        iterators[y] = 0;
+                        stack[top++] = y;
+                    }
+                }
+                if(reduced){    //apply the moves of the stack
+                    sinkFlow[root]--;
+                    for(int k=0;k<top;++k){
+                        int x = stack[k];
+                        int v = x>>1;
+                        int i = iterators[x]-1;
+                        if((x&1)==1){
+                            int outDegree = targetOffsets[v+1]-targetOffsets[v];
+                            if(i<outDegree){
+                                edgeFlow[targetOffsets[v]+i]++;
+                            }else{
+                                vertexFlow[v]--;
+                            }
+                        }else if(i==0){
+                            sourceFlow[v]--;
+                        }else if(i==1){
+                            vertexFlow[v]++;
+                        }else{
+                            edgeFlow[inEdges[inOffsets[v]+i-2]]--;
+                        }
+                    }
+                }
+            }
+        }
+
+        //split the flow into paths
+        int[] chainOf = new int[n];
+        Arrays.fill(chainOf,-1);
+        int[] next = Arrays.copyOf(targetOffsets,n);   //the next outgoing edge that may carry flow
+        int paths = 0;
+        for(int first=0;first<n;++first){
+            while(sourceFlow[first]>0){
+                sourceFlow[first]--;
+                int v = first;
+                while(true){
+                    vertexFlow[v]--;
+                    if(chainOf[v]==-1){
+                        chainOf[v] = paths;
+                    }
+                    while(next[v]<targetOffsets[v+1] && edgeFlow[next[v]]==0){
+                        ++next[v];
+                    }
+                    if(next[v]<targetOffsets[v+1]){
+                        edgeFlow[next[v]]--;
+                        v = targets[next[v]];
+                    }else{
+                        sinkFlow[v]--;
+                        break;
+                    }
+                }
+                ++paths;
+            }
+        }
+        return new ChainDecompositionResult(chainOf);
+    }
+
     private static void calcSourceLists(Vertex[] topolSorting){
         for(Vertex v:topolSorting){
             v.setAdjSources(new LinkedList<>());
@@ -442,6 +1055,107 @@ public class ChainDecomposition {
         sparsify_adj_sources(topolSorting,getChain, decomposition.size());
     }
 
+    /**
+     * For every vertex of a graph in CSR form, assigns new sparsified adjacent lists. This method utilizes a chain
+     * decomposition to detect and remove transitive edges. The ordering of adjacent target lists is ascending, while
+     * the adjacent source lists is descending.
+     * @param decomposition a chain decomposition of the graph
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     */
+    static public void sparsify(ChainDecompositionResult decomposition,CSRGraph g){
+        int[] chainOf = decomposition.getChainOf();
+        int decomp_size = decomposition.chainsSize();
+        int n = g.verticesSize();
+        int[] helper_array = new int[decomp_size];
+        int[] offsets = g.getTargetOffsets();
+        int[] adj = g.getTargets();
+        int[] newOffsets = new int[n+1];
+        int[] newAdj = new int[adj.length];
+        int size = 0;
+        for(int v=0;v<n;++v){   //keep the lowest immediate successor of every chain
+            for(int j=offsets[v];j<offsets[v+1];++j){
+                helper_array[chainOf[adj[j]]] = adj[j];
+            }
+            for(int j=offsets[v];j<offsets[v+1];++j){
+                if(helper_array[chainOf[adj[j]]]>adj[j]){
+                    helper_array[chainOf[adj[j]]] = adj[j];
+                }
+            }
+            for(int j=offsets[v];j<offsets[v+1];++j){
+                if(helper_array[chainOf[adj[j]]]==adj[j]){
+                    newAdj[size++] = adj[j];
+                }
+            }
+            newOffsets[v+1] = size;
+        }
+        g.setTargets(newOffsets,Arrays.copyOf(newAdj,size));
+        calcSourceLists(g);
+
+        offsets = g.getSourceOffsets();
+        adj = g.getSources();
+        newOffsets = new int[n+1];
+        newAdj = new int[adj.length];
+        size = 0;
+        for(int v=0;v<n;++v){   //keep the highest immediate predecessor of every chain
+            for(int j=offsets[v];j<offsets[v+1];++j){
+                helper_array[chainOf[adj[j]]] = adj[j];
+            }
+            for(int j=offsets[v];j<offsets[v+1];++j){
+                if(helper_array[chainOf[adj[j]]]<adj[j]){
+                    helper_array[chainOf[adj[j]]] = adj[j];
+                }
+            }
+            for(int j=offsets[v];j<offsets[v+1];++j){
+                if(helper_array[chainOf[adj[j]]]==adj[j]){
+                    newAdj[size++] = adj[j];
+                }
+            }
+            newOffsets[v+1] = size;
+        }
+        g.setSources(newOffsets,Arrays.copyOf(newAdj,size));
+        calcTargetLists(g);
+    }
+    private static void calcSourceLists(CSRGraph g){
+        int n = g.verticesSize();
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        int[] sourceOffsets = new int[n+1];
+        int[] sources = new int[targets.length];
+        for(int t:targets){
+            sourceOffsets[t+1]++;
+        }
+        for(int v=0;v<n;++v){
+            sourceOffsets[v+1] += sourceOffsets[v];
+        }
+        int[] pos = Arrays.copyOf(sourceOffsets,n);
+        for(int v=n-1;v>=0;--v){
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                sources[pos[targets[j]]++] = v;
+            }
+        }
+        g.setSources(sourceOffsets,sources);
+    }
+    private static void calcTargetLists(CSRGraph g){
+        int n = g.verticesSize();
+        int[] sourceOffsets = g.getSourceOffsets();
+        int[] sources = g.getSources();
+        int[] targetOffsets = new int[n+1];
+        int[] targets = new int[sources.length];
+        for(int s:sources){
+            targetOffsets[s+1]++;
+        }
+        for(int v=0;v<n;++v){
+            targetOffsets[v+1] += targetOffsets[v];
+        }
+        int[] pos = Arrays.copyOf(targetOffsets,n);
+        for(int v=0;v<n;++v){
+            for(int j=sourceOffsets[v];j<sourceOffsets[v+1];++j){
+                targets[pos[sources[j]]++] = v;
+            }
+        }
+        g.setTargets(targetOffsets,targets);
+    }
+
     public static void printDecomposition(LinkedList<Chain> decomposition){
         int chain_no = 0;
         for(Chain C:decomposition){
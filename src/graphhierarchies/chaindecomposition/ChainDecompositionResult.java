@@ -0,0 +1,228 @@
+package graphhierarchies.chaindecomposition;
+
+import graphhierarchies.graph.Vertex;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * The class holds a chain decomposition of a graph whose vertices are indexed by topological rank in primitive
+ * arrays: the chain of every vertex, the position of every vertex in its chain and the vertices of every chain
+ * in chain order (members[chainOffsets[c]..chainOffsets[c+1])).
+ * <br>Two chains are concatenated in constant time. Every chain is a linked list of segments of the members array,
+ * hence, a concatenation only links the segments of the second chain after the segments of the first one. The
+ * arrays are brought up to date in O(|V|) time when they are read after a sequence of concatenations.
+ */
+public class ChainDecompositionResult {
+    private final int[] chainOf;
+    private final int[] positionInChain;
+    private int[] members;
+    private int[] chainOffsets;
+
+    //the segments of the chains, allocated by the first concatenation
+    private int[] nextSegment;
+    private int[] lastSegment;
+    private boolean[] isRemoved;
+    private boolean isModified = false;
+
+    /**
+     * Creates a decomposition from the chain of every vertex. The vertices of every chain are in ascending
+     * topological order and the chains are renumbered in ascending order of their first vertex.
+     * @param chainOf the chain of every vertex, in [0,|V|). The array is kept and renumbered.
+     */
+    public ChainDecompositionResult(int[] chainOf){
+        int n = chainOf.length;
+        this.chainOf = chainOf;
+        positionInChain = new int[n];
+        members = new int[n];
+        int[] number = new int[n];
+        Arrays.fill(number,-1);
+        int chains = 0;
+        for(int v=0;v<n;++v){
+            if(number[chainOf[v]]==-1){
+                number[chainOf[v]] = chains++;
+            }
+            chainOf[v] = number[chainOf[v]];
+        }
+        chainOffsets = new int[chains+1];
+        for(int v=0;v<n;++v){
+            positionInChain[v] = chainOffsets[chainOf[v]+1]++;
+        }
+        for(int c=0;c<chains;++c){
+            chainOffsets[c+1] += chainOffsets[c];
+        }
+        for(int v=0;v<n;++v){
+            members[chainOffsets[chainOf[v]]+positionInChain[v]] = v;
+        }
+    }
+
+    /**
+     * Creates a decomposition from a list of chains. The vertices are given by their topological rank and the
+     * chains keep their order.
+     * @param decomposition a chain decomposition of the graph
+     */
+    public ChainDecompositionResult(LinkedList<Chain> decomposition){
+        int n = 0;
+        for(Chain C:decomposition){
+            n += C.getVertices().size();
+        }
+        chainOf = new int[n];
+        positionInChain = new int[n];
+        members = new int[n];
+        chainOffsets = new int[decomposition.size()+1];
+        int c = 0, pos = 0;
+        for(Chain C:decomposition){
+            int i = 0;
+            for(Vertex v:C.getVertices()){
+                chainOf[v.getTopolRank()] = c;
+                positionInChain[v.getTopolRank()] = i++;
+                members[pos++] = v.getTopolRank();
+            }
+            chainOffsets[++c] = pos;
+        }
+    }
+
+    /**
+     * Appends the chain second to the chain first in constant time. The chain second is removed and its number
+     * must not be used before the next read of the decomposition, that renumbers the chains keeping their order.
+     * The caller ensures that the result is a chain, i.e., that the last vertex of the first chain reaches the
+     * first vertex of the second chain.
+     */
+    public void concatenate(int first, int second){
+        if(nextSegment==null){
+            int k = chainOffsets.length-1;
+            nextSegment = new int[k];
+            lastSegment = new int[k];
+            isRemoved = new boolean[k];
+            Arrays.fill(nextSegment,-1);
+            for(int c=0;c<k;++c){
+                lastSegment[c] = c;
+            }
+        }
+        nextSegment[lastSegment[first]] = second;
+        lastSegment[first] = lastSegment[second];
+        isRemoved[second] = true;
+        isModified = true;
+    }
+
+    /**
+     * Returns the first vertex of chain c. It does not renumber the chains after concatenations.
+     */
+    public int getFirst(int c){
+        return members[chainOffsets[c]];
+    }
+
+    /**
+     * Returns the last vertex of chain c. It does not renumber the chains after concatenations.
+     */
+    public int getLast(int c){
+        int s = nextSegment==null ? c : lastSegment[c];
+        return members[chainOffsets[s+1]-1];
+    }
+
+    /**
+     * Applies the concatenations to the arrays. The remaining chains are renumbered keeping their order.
+     */
+    private void update(){
+        if(!isModified){
+            return;
+        }
+        int k = chainOffsets.length-1;
+        int[] newMembers = new int[members.length];
+        int[] newOffsets = new int[k+1];
+        int chains = 0, pos = 0;
+        for(int c=0;c<k;++c){
+            if(isRemoved[c]){
+                continue;
+            }
+            int i = 0;
+            for(int s=c;s!=-1;s=nextSegment[s]){
+                for(int j=chainOffsets[s];j<chainOffsets[s+1];++j){
+                    int v = members[j];
+                    chainOf[v] = chains;
+                    positionInChain[v] = i++;
+                    newMembers[pos++] = v;
+                }
+            }
+            newOffsets[++chains] = pos;
+        }
+        members = newMembers;
+        chainOffsets = Arrays.copyOf(newOffsets,chains+1);
+        nextSegment = null;
+        lastSegment = null;
+        isRemoved = null;
+        isModified = false;
+    }
+
+    public int verticesSize(){
+        return chainOf.length;
+    }
+
+    public int chainsSize(){
+        update();
+        return chainOffsets.length-1;
+    }
+
+    public int chainSize(int c){
+        update();
+        return chainOffsets[c+1]-chainOffsets[c];
+    }
+
+    public int getChain(int v){
+        update();
+        return chainOf[v];
+    }
+
+    public int getPosition(int v){
+        update();
+        return positionInChain[v];
+    }
+
+    /**
+     * Returns the vertex at position i of chain c.
+     */
+    public int getVertex(int c, int i){
+        update();
+        return members[chainOffsets[c]+i];
+    }
+
+    public int[] getChainOf() {
+        update();
+        return chainOf;
+    }
+
+    public int[] getPositionInChain() {
+        update();
+        return positionInChain;
+    }
+
+    /**
+     * Returns the vertices of all chains as members[getChainOffsets()[c]..getChainOffsets()[c+1]).
+     */
+    public int[] getMembers() {
+        update();
+        return members;
+    }
+
+    public int[] getChainOffsets() {
+        update();
+        return chainOffsets;
+    }
+
+    /**
+     * Returns the decomposition as a list of chains.
+     * @param topolSorting a topological sorting of the graph
+     */
+    public LinkedList<Chain> toChains(Vertex[] topolSorting){
+        update();
+        LinkedList<Chain> decomposition = new LinkedList<>();
+        for(int c=0;c<chainOffsets.length-1;++c){
+            Chain C = new Chain();
+            for(int j=chainOffsets[c];j<chainOffsets[c+1];++j){
+                C.addTop(topolSorting[members[j]]);
+            }
+            decomposition.add(C);
+        }
+        return decomposition;
+    }
+}
@@ -0,0 +1,275 @@
+package graphhierarchies.chaindecomposition;
+
+import graphhierarchies.graph.CSRGraph;
+import graphhierarchies.graph.DynamicDAG;
+
+import java.util.Arrays;
+
+/**
+ * The class keeps a chain decomposition of a directed acyclic graph that grows by vertex and edge insertions.
+ * The chains are doubly linked lists of vertices (next/previous), so chains are extended, joined and split in
+ * constant time. A new vertex is a chain of its own. A new edge (u,v) may:
+ * <ul>
+ * <li>join a chain that ends at an ancestor of v with the chain that starts at v,</li>
+ * <li>join the chain that ends at u with a chain that starts at a descendant of v,</li>
+ * <li>move v, if it is a chain of its own, between u and the next vertex x of u if v reaches x, or move u, if it is
+ * a chain of its own, between the previous vertex p of v and v if p reaches u. The chain of u, or v, is split
+ * and joined again through the moved vertex.</li>
+ * </ul>
+ * The ancestors and the descendants are found as in the primitive array version of reversedDFSlookup, but every
+ * search visits at most LOOKUP_LIMIT vertices, so an insertion costs O(1) chain operations and a bounded search.
+ * When, after an edge insertion, the number of chains exceeds the number right after the last rebuild by more than
+ * maxDrift times that number (and by more than one), the decomposition is computed again from scratch with
+ * FastChainDecomposition. Vertex insertions alone do not trigger a rebuild, since a vertex without edges is a chain
+ * in every decomposition. New edges may also lower the width far below the number of chains, hence, the
+ * decomposition is rebuilt when the number of edges exceeds (1+maxDrift) times the number at the last rebuild too.
+ * These rebuilds cost O(1/maxDrift) amortized time per edge when |V| is O(|E|).
+ * <br>The topological order is kept by DynamicDAG, so edges that arrive in an order far from a topological one
+ * (e.g. a whole graph in random order) may reorder large parts of the graph; a graph that is known up front
+ * should be passed to IncrementalChainDecomposition(CSRGraph,double).
+ */
+public class IncrementalChainDecomposition {
+    private static final int LOOKUP_LIMIT = 1<<10;
+
+    private final DynamicDAG graph;
+    private final double maxDrift;
+    private int[] next = new int[16];
+    private int[] previous = new int[16];
+    private int vertices = 0;   //the vertices of the graph that have a chain
+    private int chains = 0;
+    private int chainsAfterRebuild = 0;
+    private int edgesAfterRebuild = 0;
+    private int rebuilds = 0;
+
+    private int[] marks = new int[16];
+    private int epoch = 0;
+    private int[] stack = new int[16];
+
+    /**
+     * Creates the decomposition of an empty graph. It throws an IllegalArgumentException if maxDrift is not a
+     * positive finite number.
+     * @param maxDrift the allowed growth of the number of chains, as a fraction of the number after the last rebuild
+     */
+    public IncrementalChainDecomposition(double maxDrift){
+        this.maxDrift = checkDrift(maxDrift);
+        this.graph = new DynamicDAG();
+    }
+
+    /**
+     * Creates the decomposition of a copy of a graph in CSR form with FastChainDecomposition. It throws an
+     * IllegalArgumentException if maxDrift is not a positive finite number.
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     * @param maxDrift the allowed growth of the number of chains, as a fraction of the number after the last rebuild
+     */
+    public IncrementalChainDecomposition(CSRGraph g, double maxDrift){
+        this.maxDrift = checkDrift(maxDrift);
+        this.graph = new DynamicDAG(g);
+        rebuild();
+    }
+
+    private static double checkDrift(double maxDrift){
+        if(!(maxDrift>0) || Double.isInfinite(maxDrift)){
+            throw new IllegalArgumentException("maxDrift must be a positive finite number: "+maxDrift);
+        }
+        return maxDrift;
+    }
+
+    /**
+     * Adds a vertex with the given external ID as a chain of its own.
+     * @return the index of the vertex in the graph, or the index it already had
+     */
+    public int addVertex(long ID){
+        int v = graph.addVertex(ID);
+        addChains();
+        return v;
+    }
+
+    /**
+     * Makes every vertex that is added to the graph since the last call a chain of its own.
+     */
+    private void addChains(){
+        int n = graph.verticesSize();
+        if(n>next.length){
+            int size = Math.max(2*next.length,n);
+            next = Arrays.copyOf(next,size);
+            previous = Arrays.copyOf(previous,size);
+            marks = Arrays.copyOf(marks,size);
+            stack = Arrays.copyOf(stack,size);
+        }
+        for(int v=vertices;v<n;++v){
+            next[v] = -1;
+            previous[v] = -1;
+            ++chains;
+        }
+        vertices = n;
+    }
+
+    /**
+     * Adds an edge from the vertex with id source to the vertex with id target, adding the vertices that do not
+     * exist, and updates the chains locally. Then, it rebuilds the decomposition if the number of chains exceeds
+     * the bound. If the edge is a self-loop or closes a cycle, the graph and the chains are left unchanged, no
+     * vertex is added, and it returns false.
+     * @return true if the edge is added, otherwise, false.
+     */
+    public boolean addEdge(long source, long target){
+        if(!graph.addEdge(source,target)){
+            return false;
+        }
+        addChains();
+        update(graph.getIndex(source),graph.getIndex(target));
+        if(chains>chainsAfterRebuild+Math.max(1,maxDrift*chainsAfterRebuild) || graph.edgesSize()>(1+maxDrift)*edgesAfterRebuild){
+            rebuild();
+        }
+        return true;
+    }
+
+    /**
+     * Updates the chains after the edge (u,v) is added.
+     */
+    private void update(int u, int v){
+        if(previous[v]==-1){
+            int w = lookup(u,-1,false);
+            if(w!=-1){
+                join(w,v);
+                return;
+            }
+        }
+        if(next[u]==-1){
+            int w = lookup(v,-1,true);
+            if(w!=-1){
+                join(u,w);
+                return;
+            }
+        }
+        if(next[v]==-1 && previous[v]==-1 && next[u]!=-1 && lookup(v,next[u],true)!=-1){
+            int x = next[u];
+            join(u,v);
+            join(v,x);
+            --chains;
+        }else if(next[u]==-1 && previous[u]==-1 && previous[v]!=-1 && lookup(u,previous[v],false)!=-1){
+            int p = previous[v];
+            join(p,u);
+            join(u,v);
+            --chains;
+        }
+    }
+
+    /**
+     * Makes w the next vertex of u in their chain. If both were chain ends, two chains become one.
+     */
+    private void join(int u, int w){
+        if(next[u]==-1 && previous[w]==-1){
+            --chains;
+        }
+        next[u] = w;
+        previous[w] = u;
+    }
+
+    /**
+     * Searches the descendants (forward) or the ancestors (backward) of root, root included, for the given vertex,
+     * or for the first vertex of a chain (forward) or the last vertex of a chain (backward) if target is -1. A
+     * target vertex bounds the search to the positions of the topological order between root and target. It
+     * returns the vertex that is found or -1 if the search fails or visits more than LOOKUP_LIMIT vertices.
+     */
+    private int lookup(int root, int target, boolean isForward){
+        int bound = target==-1 ? -1 : graph.getOrder(target);
+        ++epoch;
+        int top = 0, visited = 0;
+        stack[top++] = root;
+        marks[root] = epoch;
+        while(top>0 && visited<LOOKUP_LIMIT){
+            int x = stack[--top];
+            ++visited;
+            if(target==-1 ? (isForward ? previous[x]==-1 : next[x]==-1) : x==target){
+                return x;
+            }
+            int e = isForward ? graph.firstOutEdge(x) : graph.firstInEdge(x);
+            while(e!=-1){
+                int w = isForward ? graph.edgeTarget(e) : graph.edgeSource(e);
+                if(marks[w]!=epoch && (bound==-1 || (isForward ? graph.getOrder(w)<=bound : graph.getOrder(w)>=bound))){
+                    marks[w] = epoch;
+                    stack[top++] = w;
+                }
+                e = isForward ? graph.nextOutEdge(e) : graph.nextInEdge(e);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Computes the decomposition from scratch with FastChainDecomposition.
+     */
+    public void rebuild(){
+        int n = graph.verticesSize();
+        ChainDecompositionResult decomposition = ChainDecomposition.FastChainDecomposition(graph.toCSRGraph());
+        if(next.length<n){
+            next = new int[n];
+            previous = new int[n];
+            marks = new int[n];
+            stack = new int[n];
+            epoch = 0;
+        }
+        int[] members = decomposition.getMembers();
+        int[] chainOffsets = decomposition.getChainOffsets();
+        for(int c=0;c<decomposition.chainsSize();++c){
+            int last = -1;
+            for(int i=chainOffsets[c];i<chainOffsets[c+1];++i){
+                int v = graph.getVertex(members[i]);
+                previous[v] = last;
+                if(last!=-1){
+                    next[last] = v;
+                }
+                last = v;
+            }
+            next[last] = -1;
+        }
+        vertices = n;
+        chains = decomposition.chainsSize();
+        chainsAfterRebuild = chains;
+        edgesAfterRebuild = graph.edgesSize();
+        ++rebuilds;
+    }
+
+    /**
+     * Returns the decomposition of the graph that toCSRGraph of getGraph returns, i.e. the vertices are given by
+     * their position in the current topological order.
+     */
+    public ChainDecompositionResult getDecomposition(){
+        int n = graph.verticesSize();
+        int[] chainOf = new int[n];
+        for(int i=0;i<n;++i){
+            int v = graph.getVertex(i);
+            chainOf[i] = previous[v]==-1 ? i : chainOf[graph.getOrder(previous[v])];
+        }
+        return new ChainDecompositionResult(chainOf);
+    }
+
+    public DynamicDAG getGraph(){
+        return graph;
+    }
+
+    public int chainsSize(){
+        return chains;
+    }
+
+    /**
+     * Returns the number of times the decomposition was computed from scratch.
+     */
+    public int getRebuilds(){
+        return rebuilds;
+    }
+
+    /**
+     * Returns the next vertex of v in its chain or -1 if v is the last vertex of its chain.
+     */
+    public int getNext(int v){
+        return next[v];
+    }
+
+    /**
+     * Returns the previous vertex of v in its chain or -1 if v is the first vertex of its chain.
+     */
+    public int getPrevious(int v){
+        return previous[v];
+    }
+}
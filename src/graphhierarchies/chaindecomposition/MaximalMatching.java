@@ -1,9 +1,12 @@
 package graphhierarchies.chaindecomposition;
 
-import java.util.ArrayList;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 
 /**
@@ -13,44 +16,52 @@ class MaximalMatching{
 
     static private final int NIL = 0;
     static private final int INF = Integer.MAX_VALUE;
+    static private final int PARALLEL_THRESHOLD = 1<<12;
+    static private final VarHandle DIST = MethodHandles.arrayElementVarHandle(int[].class);
 
 
     // A class to represent Bipartite graph
-    // for Hopcroft Karp implementation
+    // for Hopcroft Karp implementation.
+    // The edges are kept in primitive arrays
+    // and are turned into CSR form before matching.
     static class BipGraph
     {
-        class Link {
-            final int u;
-            final int v;
-
-            /*
-             * 0 < right <= m
-             * 0 < left <= n
-             * */
-            Link(int u, int v) {
-                if (u > 0 && u <= size_left && v>0 && v<=size_right ) {
-                    this.u = u;
-                    this.v = v;
-                }else {
-                    throw new RuntimeException("Probably my code has a bug");
-                }
-            }
-        }
         // The number of vertices on left
         // and right sides of Bipartite Graph
         int size_left, size_right;
 
-        // adj[u] stores adjacents of left side
-        // vertex 'u'. The value of u ranges
-        // from 1 to m. 0 is used for dummy vertex
-        List<Integer>[] adj;
+        // The links in insertion order
+        // 0 < right <= size_right
+        // 0 < left <= size_left
+        private int[] linkU = new int[16], linkV = new int[16];
+        private int links = 0;
+
+        // adj[offsets[u]..offsets[u+1]) stores adjacents of
+        // left side vertex 'u'. The value of u ranges
+        // from 1 to size_left. 0 is used for dummy vertex
+        private int[] offsets, adj;
 
         int[] pairU, pairV, dist;
 
+        // The queue of bfs, the stack of dfs and the
+        // position of the next unexplored adjacent of every
+        // vertex of the stack. They are reused by all phases.
+        private int[] queue, stack, iterators;
+
+        // If true, the layers of bfs are computed in parallel
+        private final boolean parallel;
+
+        // The initial matching, set by match(u,v)
+        private int[] seedU;
+
+        // The number of phases of the last hopcroftKarp
+        private int phases;
+
         int getm(){return size_left;}
         int getn(){return size_right;}
         int[] getpairU(){return pairU;}
         int[] getpairV(){return pairV;}
+        int getPhases(){return phases;}
 
         LinkedList<Integer> getfreenodes(){
             LinkedList<Integer> fn = new LinkedList<>();
@@ -66,6 +77,7 @@ class MaximalMatching{
         // Returns size of maximum matching
         int hopcroftKarp()
         {
+            buildAdj();
 
             // pairU[u] stores pair of u in matching where u
             // is a vertex on left side of Bipartite Graph.
@@ -81,17 +93,31 @@ class MaximalMatching{
             // to u'in augmenting path
             dist = new int[size_left + 1];
 
-            // Initialize NIL as pair of all vertices
-//            Arrays.fill(pairU, NIL);
-//            Arrays.fill(pairV, NIL);
+            queue = new int[size_left];
+            stack = new int[size_left + 1];
+            iterators = new int[size_left + 1];
 
-            // Initialize result
+            // Initialize result with the initial matching
             int result = 0;
+            if (seedU != null)
+            {
+                for(int u = 1; u <= size_left; u++)
+                {
+                    if (seedU[u] != NIL)
+                    {
+                        pairU[u] = seedU[u];
+                        pairV[seedU[u]] = u;
+                        result++;
+                    }
+                }
+            }
 
             // Keep updating the result while
             // there is an augmenting path.
-            while (bfs())
+            phases = 0;
+            while (parallel ? parallelBfs() : bfs())
             {
+                phases++;
                 // Find a free vertex
                 for(int u = 1; u <= size_left; u++)
 
@@ -104,13 +130,29 @@ class MaximalMatching{
             return result;
         }
 
+        // Turns the links into CSR form,
+        // keeping the insertion order
+        private void buildAdj()
+        {
+            offsets = new int[size_left + 2];
+            for(int i = 0; i < links; ++i){
+                offsets[linkU[i] + 1]++;
+            }
+            for(int u = 0; u <= size_left; ++u){
+                offsets[u + 1] += offsets[u];
+            }
+            adj = new int[links];
+            int[] pos = Arrays.copyOf(offsets, size_left + 1);
+            for(int i = 0; i < links; ++i){
+                adj[pos[linkU[i]]++] = linkV[i];
+            }
+        }
+
         // Returns true if there is an augmenting
         // path, else returns false
         boolean bfs()
         {
-
-            // An integer queue
-            Queue<Integer> Q = new LinkedList<>();
+            int head = 0, tail = 0;
 
             // First layer of vertices (set distance as 0)
             for(int u = 1; u <= size_left; u++)
@@ -123,7 +165,7 @@ class MaximalMatching{
 
                     // u is not matched
                     dist[u] = 0;
-                    Q.add(u);
+                    queue[tail++] = u;
                 }
 
                 // Else set distance as infinite
@@ -137,13 +179,13 @@ class MaximalMatching{
             // NIL as infinite
             dist[NIL] = INF;
 
-            // Q is going to contain vertices
+            // The queue is going to contain vertices
             // of left side only.
-            while (!Q.isEmpty())
+            while (head < tail)
             {
 
                 // Dequeue a vertex
-                int u = Q.poll();
+                int u = queue[head++];
 
                 // If this node is not NIL and
                 // can provide a shorter path to NIL
@@ -152,9 +194,9 @@ class MaximalMatching{
 
                     // Get all adjacent vertices of
                     // the dequeued vertex u
-                    for(int i : adj[u])
+                    for(int i = offsets[u]; i < offsets[u + 1]; ++i)
                     {
-                        int v = i;
+                        int v = adj[i];
 
                         // If pair of v is not considered
                         // so far (v, pairV[V]) is not yet
@@ -165,7 +207,9 @@ class MaximalMatching{
                             // Consider the pair and add
                             // it to queue
                             dist[pairV[v]] = dist[u] + 1;
-                            Q.add(pairV[v]);
+                            if(pairV[v] != NIL){
+                                queue[tail++] = pairV[v];
+                            }
                         }
                     }
                 }
@@ -177,61 +221,136 @@ class MaximalMatching{
             return (dist[NIL] != INF);
         }
 
+        // The level-synchronous version of bfs. The vertices
+        // of every layer are expanded in parallel and a
+        // vertex joins the next layer by a compare-and-set
+        // on its distance, so it is added only once.
+        boolean parallelBfs()
+        {
+            int head = 0;
+            AtomicInteger tail = new AtomicInteger();
+            IntStream.rangeClosed(1, size_left).parallel().forEach(u -> {
+                if (pairU[u] == NIL){
+                    dist[u] = 0;
+                    queue[tail.getAndIncrement()] = u;
+                }else{
+                    dist[u] = INF;
+                }
+            });
+            dist[NIL] = INF;
+
+            AtomicBoolean found = new AtomicBoolean();
+            int layer = 0;
+            while (head < tail.get() && !found.get())
+            {
+                int end = tail.get();
+                int next = layer + 1;
+                IntStream frontier = IntStream.range(head, end);
+                if(end - head >= PARALLEL_THRESHOLD){
+                    frontier = frontier.parallel();
+                }
+                frontier.forEach(i -> {
+                    int u = queue[i];
+                    for(int j = offsets[u]; j < offsets[u + 1]; ++j)
+                    {
+                        int w = pairV[adj[j]];
+                        if (w == NIL){
+                            found.set(true);
+                        }else if (dist[w] == INF && DIST.compareAndSet(dist, w, INF, next)){
+                            queue[tail.getAndIncrement()] = w;
+                        }
+                    }
+                });
+                if(found.get()){
+                    dist[NIL] = next;
+                }
+                head = end;
+                layer = next;
+            }
+            return (dist[NIL] != INF);
+        }
+
         // Returns true if there is an augmenting
-        // path beginning with free vertex u
+        // path beginning with free vertex u.
+        // The search uses an explicit stack, the
+        // adjacent of every vertex of the stack that
+        // leads to the next one is adj[iterators[u]-1]
         boolean dfs(int u)
         {
-            //System.out.println("");
-            if (u != NIL)
+            int top = 0;
+            stack[top++] = u;
+            iterators[u] = offsets[u];
+            while (top > 0)
             {
-                for(int v : adj[u])
+                int x = stack[top - 1];
+                if (iterators[x] < offsets[x + 1])
                 {
+                    int v = adj[iterators[x]++];
 
                     // Follow the distances set by BFS
-                    if (dist[pairV[v]] == dist[u] + 1)
+                    if (dist[pairV[v]] == dist[x] + 1)
                     {
-                        // System.out.print(""+v+"-");
-                        // If dfs for pair of v also returns
-                        // true
-                        if (dfs(pairV[v]) == true)
+                        if (pairV[v] == NIL)
                         {
-                            //System.out.print("["+u+"-"+v+"]");
-                            pairV[v] = u;
-                            pairU[u] = v;
+                            // Augment along the stack
+                            for(int i = top - 1; i >= 0; --i)
+                            {
+                                int y = stack[i];
+                                int w = adj[iterators[y] - 1];
+                                pairV[w] = y;
+                                pairU[y] = w;
+                            }
                             return true;
                         }
+                        stack[top++] = pairV[v];
+                        iterators[pairV[v]] = offsets[pairV[v]];
                     }
                 }
-
-                // If there is no augmenting path
-                // beginning with u.
-                dist[u] = INF;
-                return false;
+                else
+                {
+                    // If there is no augmenting path
+                    // beginning with x.
+                    dist[x] = INF;
+                    --top;
+                }
             }
-            return true;
+            return false;
         }
 
         public BipGraph(int size_left, int size_right)
         {
-            this.size_left = size_left;
-            this.size_right = size_right;
-            adj = new ArrayList[size_left + 1];
-            for(int i = 0; i< size_left +1; ++i){
-                adj[i]=new ArrayList<>();
-            }
+            this(size_left, size_right, false);
         }
 
-        // To add edge from u to v and v to u
-        private void addEdge(int u, int v)
+        public BipGraph(int size_left, int size_right, boolean parallel)
         {
+            this.size_left = size_left;
+            this.size_right = size_right;
+            this.parallel = parallel;
+        }
 
-            // Add u to v’s list.
-            adj[u].add(v);
+        // Adds (u,v) to the initial matching of hopcroftKarp.
+        // The link (u,v) must exist and u, v must not be
+        // in the initial matching already.
+        void match(int u, int v){
+            if (seedU == null){
+                seedU = new int[size_left + 1];
+            }
+            seedU[u] = v;
         }
+
         void addLink(int u, int v){
-            Link link = new Link(u,v);
-            addEdge(link.u,link.v);
+            if (u <= 0 || u > size_left || v <= 0 || v > size_right) {
+                throw new RuntimeException("Probably my code has a bug");
+            }
+            if (links == linkU.length){
+                linkU = Arrays.copyOf(linkU, 2 * links);
+                linkV = Arrays.copyOf(linkV, 2 * links);
+            }
+            linkU[links] = u;
+            linkV[links] = v;
+            ++links;
         }
     }
 
-}
\ No newline at end of file
+}
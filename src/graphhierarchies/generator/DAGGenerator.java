@@ -0,0 +1,273 @@
+package graphhierarchies.generator;
+
+import graphhierarchies.graph.CSRGraph;
+import graphhierarchies.graph.EdgeConsumer;
+import graphhierarchies.graph.GraphBuilder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * The class generates random directed acyclic graphs with a given number of vertices, edge density, width and
+ * number of layers. The same seed and parameters give the same graph.
+ * <br>The vertices are split into width chains of about the same length and every chain is a path of the graph.
+ * The vertices of every chain are spread over the layers in chain order. The rest of the edges are either:
+ * <ul>
+ * <li>cross edges, from a vertex to a vertex of another chain in a later layer. The target layer is close to the
+ * layer of the source, the distance follows a geometric distribution.</li>
+ * <li>transitive edges, from a vertex to a vertex of its own chain at least two positions later. These edges are
+ * transitive because of the chain path. The transitiveFraction of the extra edges are transitive edges, cross edges
+ * may be transitive too.</li>
+ * </ul>
+ * The sources of the extra edges are picked with a skew towards a few hub vertices (degree skew). The width is at
+ * most width, since the chains cover the graph. A path between two chains passes a cross edge, so it ends in a later
+ * layer, hence, one vertex per chain from the same layer forms an antichain. If a layer holds a vertex of every
+ * chain (e.g. layers &le; vertices/width) the width is exactly width. The vertex IDs are a random permutation of
+ * [0,vertices), so the IDs are not in topological order.
+ * <br>The edges are generated one at a time (generate), so a graph is written to a file (write) without holding it
+ * in memory. Parallel edges may be generated, Reader and GraphBuilder remove them.
+ */
+public class DAGGenerator {
+    private static final int MAX_FAILURES = 1<<20;
+
+    private final long seed;
+    private int vertices = 1000;
+    private double density = 2;
+    private int width = 10;
+    private int layers = -1;
+    private double skew = 0;
+    private double transitiveFraction = 0;
+
+    public DAGGenerator(long seed){
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of vertices. It throws an IllegalArgumentException if vertices is negative.
+     */
+    public DAGGenerator setVertices(int vertices){
+        if(vertices<0){
+            throw new IllegalArgumentException("vertices must not be negative: "+vertices);
+        }
+        this.vertices = vertices;
+        return this;
+    }
+
+    /**
+     * Sets the number of edges as a multiple of the number of vertices (the average out-degree). There are at
+     * least vertices-width edges, the edges of the chains. It throws an IllegalArgumentException if density is
+     * negative or not finite.
+     */
+    public DAGGenerator setDensity(double density){
+        if(!(density>=0) || Double.isInfinite(density)){
+            throw new IllegalArgumentException("density must be a non-negative finite number: "+density);
+        }
+        this.density = density;
+        return this;
+    }
+
+    /**
+     * Sets the number of chains. It throws an IllegalArgumentException if width is less than 1.
+     */
+    public DAGGenerator setWidth(int width){
+        if(width<1){
+            throw new IllegalArgumentException("width must be at least 1: "+width);
+        }
+        this.width = width;
+        return this;
+    }
+
+    /**
+     * Sets the number of layers. The default is vertices/width (rounded up), i.e. one vertex of every chain per layer.
+     */
+    public DAGGenerator setLayers(int layers){
+        this.layers = layers;
+        return this;
+    }
+
+    /**
+     * Sets the degree skew. The sources of the extra edges are picked as hubs[vertices*x^(1+skew)], where x is
+     * uniform in [0,1) and hubs a random permutation, so 0 gives about the same out-degree to every vertex and
+     * larger values give most extra edges to a few vertices. It throws an IllegalArgumentException if skew is
+     * negative or NaN.
+     */
+    public DAGGenerator setSkew(double skew){
+        if(!(skew>=0)){
+            throw new IllegalArgumentException("skew must not be negative: "+skew);
+        }
+        this.skew = skew;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of the extra edges, i.e. the edges that are not chain edges, that are transitive. It throws
+     * an IllegalArgumentException if transitiveFraction is not in [0,1].
+     */
+    public DAGGenerator setTransitiveFraction(double transitiveFraction){
+        if(!(transitiveFraction>=0 && transitiveFraction<=1)){
+            throw new IllegalArgumentException("transitiveFraction must be in [0,1]: "+transitiveFraction);
+        }
+        this.transitiveFraction = transitiveFraction;
+        return this;
+    }
+
+    /**
+     * Generates the graph. Every edge is passed to edges as a pair of IDs and every vertex without edges, i.e.
+     * a chain of a single vertex, is passed to singles. It uses O(|V|) memory.
+     */
+    public void generate(EdgeConsumer edges, IntConsumer singles){
+        int n = vertices;
+        if(n<=0){
+            return;
+        }
+        Random random = new Random(seed);
+        int w = Math.max(1,Math.min(width,n));
+        int l = layers>0 ? layers : (n+w-1)/w;
+        int[] IDs = permutation(n,random);
+        int[] hubs = permutation(n,random);
+
+        //the chains, chain c holds the vertices c, c+w, c+2w, ...
+        for(int v=0;v<n;++v){
+            if(v+w<n){
+                edges.accept(IDs[v],IDs[v+w]);
+            }else if(v<w){
+                singles.accept(IDs[v]);
+            }
+        }
+
+        long extra = Math.max(0,Math.round(density*n)-(n-w));
+        int failures = 0;
+        for(long i=0;i<extra && failures<MAX_FAILURES;){
+            int u = hubs[(int)(n*Math.pow(random.nextDouble(),1+skew))];
+            int v = random.nextDouble()<transitiveFraction ? transitiveTarget(u,n,w,random) : crossTarget(u,n,w,l,random);
+            if(v==-1){
+                ++failures;
+                continue;
+            }
+            edges.accept(IDs[u],IDs[v]);
+            ++i;
+        }
+    }
+
+    /**
+     * Returns a vertex of the chain of u at least two positions after u or -1 if there is no such vertex.
+     */
+    private static int transitiveTarget(int u, int n, int w, Random random){
+        int c = u%w, r = u/w;
+        int length = chainLength(c,n,w);
+        int d = 2;
+        while(random.nextBoolean()){
+            ++d;
+        }
+        d = Math.min(d,length-1-r);
+        return d<2 ? -1 : u+d*w;
+    }
+
+    /**
+     * Returns a vertex of another chain in a later layer than u or -1 if the picked layer of the picked chain is empty.
+     */
+    private static int crossTarget(int u, int n, int w, int l, Random random){
+        int c = u%w;
+        int layer = layerOf(u/w,chainLength(c,n,w),l);
+        if(w==1 || layer>=l-1){
+            return -1;
+        }
+        int target = layer+1;
+        while(target<l-1 && random.nextBoolean()){
+            ++target;
+        }
+        int chain = random.nextInt(w-1);
+        if(chain>=c){
+            ++chain;
+        }
+        int length = chainLength(chain,n,w);
+        int first = firstOfLayer(target,length,l);
+        int last = firstOfLayer(target+1,length,l);
+        if(first>=last){
+            return -1;
+        }
+        return chain+(first+random.nextInt(last-first))*w;
+    }
+
+    private static int chainLength(int c, int n, int w){
+        return (n-c+w-1)/w;
+    }
+
+    /**
+     * Returns the layer of the vertex at position r of a chain with the given length.
+     */
+    private static int layerOf(int r, int length, int l){
+        return (int)((long)r*l/length);
+    }
+
+    /**
+     * Returns the first position of a chain with the given length whose layer is at least layer.
+     */
+    private static int firstOfLayer(int layer, int length, int l){
+        return (int)(((long)layer*length+l-1)/l);
+    }
+
+    private static int[] permutation(int n, Random random){
+        int[] p = new int[n];
+        for(int i=0;i<n;++i){
+            p[i] = i;
+        }
+        for(int i=n-1;i>0;--i){
+            int j = random.nextInt(i+1);
+            int t = p[i];
+            p[i] = p[j];
+            p[j] = t;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the generated graph in CSR form, without parallel edges (see GraphBuilder.build).
+     */
+    public CSRGraph build(){
+        GraphBuilder builder = new GraphBuilder();
+        generate(builder::addEdge,builder::addVertex);
+        return builder.build();
+    }
+
+    /**
+     * Writes the generated graph to the stream in the format of Reader.ReadEdgeList. The stream is not closed.
+     */
+    public void write(OutputStream out){
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out,StandardCharsets.US_ASCII),1<<16);
+        try {
+            generate((source,target) -> writeLine(writer,source+","+target),ID -> writeLine(writer,Integer.toString(ID)));
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the generated graph to the file in the format of Reader.ReadEdgeList.
+     */
+    public void write(File textfile){
+        try (OutputStream out = new FileOutputStream(textfile)) {
+            write(out);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void writeLine(Writer writer, String line){
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
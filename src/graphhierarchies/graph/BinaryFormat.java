@@ -0,0 +1,123 @@
+package graphhierarchies.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The binary graph format that Writer writes and Reader opens. All values are little-endian integers:<br>
+ * 1) header: magic, version, flags, n (number of vertices), m (number of edges), reserved. 32-bit each.<br>
+ * 2) the vertex-ID table, long[n].<br>
+ * 3) the forward adjacency, int[n+1] offsets followed by int[m] targets.<br>
+ * 4) the reverse adjacency, int[n+1] offsets followed by int[m] sources.<br>
+ * If the flag TOPOLOGICAL is set, the vertices are stored in ascending topological order (the vertex-ID table is a
+ * topological sorting), the target lists are in ascending order and the source lists in descending order.
+ */
+class BinaryFormat {
+    static final int MAGIC = 0x3148474F; // "OGH1"
+    static final int VERSION = 2;
+    static final int TOPOLOGICAL = 1;
+    static final int HEADER_SIZE = 24;
+
+    private static final int WINDOW = 1<<28; // ints per mapped window (1GB)
+
+    private BinaryFormat() {}
+
+    /**
+     * Returns the size in bytes of the file of a graph with n vertices and m edges.
+     */
+    static long fileSize(int n, int m){
+        return HEADER_SIZE+8L*n+2*(4L*(n+1)+4L*m);
+    }
+
+    /**
+     * Returns true if the index of every vertex is a topological rank and the adjacency lists are sorted as
+     * GraphUtil.sortAdjLists sorts them.
+     */
+    static boolean isTopologicallySorted(CSRGraph g){
+        int n = g.verticesSize();
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        int[] sourceOffsets = g.getSourceOffsets();
+        int[] sources = g.getSources();
+        for(int v=0;v<n;++v){
+            int previous = v;
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                if(targets[j]<=previous){
+                    return false;
+                }
+                previous = targets[j];
+            }
+            previous = v;
+            for(int j=sourceOffsets[v];j<sourceOffsets[v+1];++j){
+                if(sources[j]>=previous){
+                    return false;
+                }
+                previous = sources[j];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads count integers that start at byte position pos. The section is memory mapped in windows and copied
+     * with bulk transfers.
+     */
+    static int[] readInts(FileChannel channel, long pos, int count) throws IOException {
+        int[] array = new int[count];
+        for(int i=0;i<count;i+=WINDOW){
+            int len = Math.min(WINDOW,count-i);
+            IntBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos+4L*i, 4L*len)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            buf.get(array,i,len);
+        }
+        return array;
+    }
+
+    /**
+     * Reads count 64-bit integers that start at byte position pos.
+     */
+    static long[] readLongs(FileChannel channel, long pos, int count) throws IOException {
+        long[] array = new long[count];
+        for(int i=0;i<count;i+=WINDOW/2){
+            int len = Math.min(WINDOW/2,count-i);
+            LongBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos+8L*i, 8L*len)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            buf.get(array,i,len);
+        }
+        return array;
+    }
+
+    static void writeLongs(FileChannel channel, ByteBuffer buf, long[] array) throws IOException {
+        LongBuffer longs = buf.clear().asLongBuffer();
+        int i = 0;
+        while(i<array.length){
+            int len = Math.min(longs.capacity(),array.length-i);
+            longs.clear();
+            longs.put(array,i,len);
+            buf.clear().limit(8*len);
+            while(buf.hasRemaining()){
+                channel.write(buf);
+            }
+            i += len;
+        }
+    }
+
+    static void writeInts(FileChannel channel, ByteBuffer buf, int[] array) throws IOException {
+        IntBuffer ints = buf.clear().asIntBuffer();
+        int i = 0;
+        while(i<array.length){
+            int len = Math.min(ints.capacity(),array.length-i);
+            ints.clear();
+            ints.put(array,i,len);
+            buf.clear().limit(4*len);
+            while(buf.hasRemaining()){
+                channel.write(buf);
+            }
+            i += len;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package graphhierarchies.graph;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The class represents a directed graph in compressed sparse row (CSR) form. The immediate successors of vertex v
+ * are stored in targets[targetOffsets[v]..targetOffsets[v+1]) and the immediate predecessors in
+ * sources[sourceOffsets[v]..sourceOffsets[v+1]). Vertices are identified by an index in [0,n). After calling
+ * GraphUtil.setTopologicalRank(CSRGraph) the index of every vertex equals its topological rank.
+ */
+public class CSRGraph {
+    private IDMap IDs;
+    private int[] targetOffsets;
+    private int[] targets;
+    private int[] sourceOffsets;
+    private int[] sources;
+    private boolean isTopologicallySorted = false;
+
+    /**
+     * Creates a CSR copy of a directed graph. The vertices are indexed in the iteration order of the digraph.
+     * @param g a directed graph
+     */
+    public CSRGraph(DiGraph g){
+        Vertex[] vertices = g.getVertices().toArray(new Vertex[0]);
+        int[] ranks = new int[vertices.length];
+        for(int i=0;i<vertices.length;++i){
+            ranks[i] = vertices[i].getTopolRank();
+            vertices[i].setTopolRank(i);
+        }
+        build(vertices);
+        for(int i=0;i<vertices.length;++i){
+            vertices[i].setTopolRank(ranks[i]);
+        }
+    }
+
+    /**
+     * Creates a CSR copy of a directed acyclic graph whose vertices are indexed by their topological rank. The order
+     * of the adjacency lists is preserved, hence, if the lists are sorted (GraphUtil.sortAdjLists), they remain sorted.
+     * @param topOrder a topological sorting of the graph
+     */
+    public CSRGraph(Vertex[] topOrder){
+        build(topOrder);
+    }
+
+    CSRGraph(IDMap IDs, int[] targetOffsets, int[] targets, int[] sourceOffsets, int[] sources){
+        this.IDs = IDs;
+        this.targetOffsets = targetOffsets;
+        this.targets = targets;
+        this.sourceOffsets = sourceOffsets;
+        this.sources = sources;
+    }
+
+    /**
+     * Creates a graph from an array of encoded edges. Every edge is encoded as (source index &lt;&lt; 32 | target index).
+     * Negative entries are ignored and parallel edges are removed. The array is sorted in place. The target lists of
+     * the returned graph are in ascending index order and so are the source lists.
+     * @param IDs the dictionary of the external IDs
+     * @param edges the encoded edges
+     */
+    static CSRGraph fromEdges(IDMap IDs, long[] edges){
+        int n = IDs.size();
+        Arrays.parallelSort(edges);
+        int m = 0;
+        for(int i=0;i<edges.length;++i){
+            if(edges[i]>=0 && (m==0 || edges[m-1]!=edges[i])){
+                edges[m++] = edges[i];
+            }
+        }
+        int[] targetOffsets = new int[n+1];
+        int[] sourceOffsets = new int[n+1];
+        int[] targets = new int[m];
+        for(int i=0;i<m;++i){
+            int s = (int)(edges[i]>>>32);
+            int t = (int)edges[i];
+            targets[i] = t;
+            targetOffsets[s+1]++;
+            sourceOffsets[t+1]++;
+        }
+        for(int i=0;i<n;++i){
+            targetOffsets[i+1] += targetOffsets[i];
+            sourceOffsets[i+1] += sourceOffsets[i];
+        }
+        int[] sources = new int[m];
+        int[] pos = Arrays.copyOf(sourceOffsets,n);
+        for(int i=0;i<m;++i){
+            sources[pos[(int)edges[i]]++] = (int)(edges[i]>>>32);
+        }
+        return new CSRGraph(IDs,targetOffsets,targets,sourceOffsets,sources);
+    }
+
+    /**
+     * Creates a DiGraph with the same vertices and edges. The adjacency lists keep the order of the CSR lists.
+     * It throws an ArithmeticException if an ID does not fit in an int.
+     * @return a DiGraph copy of the graph
+     */
+    public DiGraph toDiGraph(){
+        int n = verticesSize();
+        Vertex[] vertices = new Vertex[n];
+        for(int v=0;v<n;++v){
+            vertices[v] = new Vertex(Math.toIntExact(IDs.getID(v)));
+        }
+        for(int v=0;v<n;++v){
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                vertices[v].addAdjTarget(vertices[targets[j]]);
+            }
+            for(int j=sourceOffsets[v];j<sourceOffsets[v+1];++j){
+                vertices[v].addAdjSource(vertices[sources[j]]);
+            }
+        }
+        return new DiGraph(vertices,edgesSize());
+    }
+
+    private void build(Vertex[] vertices){
+        int n = vertices.length;
+        long[] vertexIDs = new long[n];
+        targetOffsets = new int[n+1];
+        sourceOffsets = new int[n+1];
+        for(Vertex v:vertices){
+            int i = v.getTopolRank();
+            vertexIDs[i] = v.getID();
+            targetOffsets[i+1] = v.getAdjTargets().size();
+            sourceOffsets[i+1] = v.getAdjSources().size();
+        }
+        for(int i=0;i<n;++i){
+            targetOffsets[i+1] += targetOffsets[i];
+            sourceOffsets[i+1] += sourceOffsets[i];
+        }
+        IDs = IDMap.of(vertexIDs);
+        targets = new int[targetOffsets[n]];
+        sources = new int[sourceOffsets[n]];
+        for(Vertex v:vertices){
+            int i = v.getTopolRank();
+            int pos = targetOffsets[i];
+            for(Vertex t:v.getAdjTargets()){
+                targets[pos++] = t.getTopolRank();
+            }
+            pos = sourceOffsets[i];
+            for(Vertex s:v.getAdjSources()){
+                sources[pos++] = s.getTopolRank();
+            }
+        }
+    }
+
+    /**
+     * Renumbers the vertices so that vertex order[i] gets index i. The adjacency lists keep their order.
+     * @param order a permutation of the vertex indices
+     */
+    void relabel(int[] order){
+        int n = order.length;
+        int[] newIndex = new int[n];
+        for(int i=0;i<n;++i){
+            newIndex[order[i]] = i;
+        }
+        long[] newIDs = new long[n];
+        int[] newTargetOffsets = new int[n+1];
+        int[] newSourceOffsets = new int[n+1];
+        for(int i=0;i<n;++i){
+            int v = order[i];
+            newIDs[i] = IDs.getID(v);
+            newTargetOffsets[i+1] = newTargetOffsets[i] + outDegree(v);
+            newSourceOffsets[i+1] = newSourceOffsets[i] + inDegree(v);
+        }
+        int[] newTargets = new int[targets.length];
+        int[] newSources = new int[sources.length];
+        for(int i=0;i<n;++i){
+            int v = order[i];
+            int pos = newTargetOffsets[i];
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                newTargets[pos++] = newIndex[targets[j]];
+            }
+            pos = newSourceOffsets[i];
+            for(int j=sourceOffsets[v];j<sourceOffsets[v+1];++j){
+                newSources[pos++] = newIndex[sources[j]];
+            }
+        }
+        IDs = IDMap.of(newIDs);
+        targetOffsets = newTargetOffsets;
+        targets = newTargets;
+        sourceOffsets = newSourceOffsets;
+        sources = newSources;
+        isTopologicallySorted = false;
+    }
+
+    public int verticesSize(){return IDs.size();}
+    public int edgesSize(){return targets.length;}
+
+    /**
+     * Returns the external ID (as read by Reader) of the vertex with index v.
+     */
+    public long getID(int v){return IDs.getID(v);}
+
+    /**
+     * Returns the index of the vertex with the given external ID or -1 if there is no such vertex.
+     */
+    public int getIndex(long ID){return IDs.getIndex(ID);}
+    public int outDegree(int v){return targetOffsets[v+1]-targetOffsets[v];}
+    public int inDegree(int v){return sourceOffsets[v+1]-sourceOffsets[v];}
+
+    /**
+     * Calls the action for every edge of the graph in ascending order of the source vertices.
+     * @param action the action that accepts the source and the target of every edge
+     */
+    public void forEachEdge(EdgeConsumer action){
+        int n = verticesSize();
+        for(int v=0;v<n;++v){
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                action.accept(v,targets[j]);
+            }
+        }
+    }
+
+    /**
+     * Returns a sequential stream of all edges. Every edge is encoded in a long, use edgeSource and edgeTarget to
+     * decode it. The stream splits on edge ranges, hence, it can be turned into a balanced parallel stream.
+     */
+    public LongStream edges(){
+        return StreamSupport.longStream(new EdgeSpliterator(targetOffsets,targets,0,targets.length),false);
+    }
+
+    /**
+     * Returns the source vertex of an edge that is encoded by edges().
+     */
+    public static int edgeSource(long edge){return (int)(edge>>>32);}
+
+    /**
+     * Returns the target vertex of an edge that is encoded by edges().
+     */
+    public static int edgeTarget(long edge){return (int)edge;}
+
+    public int[] getTargetOffsets() {
+        return targetOffsets;
+    }
+    public int[] getTargets() {
+        return targets;
+    }
+    public int[] getSourceOffsets() {
+        return sourceOffsets;
+    }
+    public int[] getSources() {
+        return sources;
+    }
+
+    public void setTargets(int[] targetOffsets, int[] targets) {
+        this.targetOffsets = targetOffsets;
+        this.targets = targets;
+        isTopologicallySorted = false;
+    }
+    public void setSources(int[] sourceOffsets, int[] sources) {
+        this.sourceOffsets = sourceOffsets;
+        this.sources = sources;
+        isTopologicallySorted = false;
+    }
+
+    /**
+     * Returns true if the index of every vertex is known to be its topological rank and the adjacency lists are
+     * sorted as GraphUtil.sortAdjLists sorts them, i.e. the graph was read from a binary file with the TOPOLOGICAL
+     * flag or sorted by GraphUtil.sortAdjLists. Any change of the adjacency lists or of the indices clears it.
+     */
+    public boolean isTopologicallySorted(){
+        return isTopologicallySorted;
+    }
+    void setTopologicallySorted(boolean isTopologicallySorted){
+        this.isTopologicallySorted = isTopologicallySorted;
+    }
+}
@@ -0,0 +1,178 @@
+package graphhierarchies.graph;
+
+import java.util.Arrays;
+
+/**
+ * The class holds the condensation of a directed graph: every strongly connected component (SCC) becomes a single
+ * vertex and there is an edge between two components if there is an edge between their vertices. The condensation
+ * is a DAG, hence, the chain decomposition and reachability solutions apply to it even if the graph has cycles.
+ * The components are computed with an iterative version of Tarjan's algorithm in O(|V|+|E|) time and are numbered
+ * in topological order, i.e., the index of a component in the condensation DAG is its topological rank.
+ */
+public class Condensation {
+    private final CSRGraph graph;
+    private final CSRGraph dag;
+    private final int[] componentOf;
+    private final int[] memberOffsets;
+    private final int[] members;
+
+    /**
+     * Computes the strongly connected components and the condensation of the graph.
+     * @param g a directed graph
+     */
+    public Condensation(CSRGraph g){
+        int n = g.verticesSize();
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        graph = g;
+        componentOf = new int[n];
+
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] iterators = new int[n];
+        int top = 0, counter = 0, components = 0;
+        Arrays.fill(index,-1);
+
+        for(int root=0;root<n;++root){
+            if(index[root]!=-1){
+                continue;
+            }
+            int callTop = 0;
+            index[root] = low[root] = counter++;
+            stack[top++] = root;
+            onStack[root] = true;
+            iterators[root] = targetOffsets[root];
+            callStack[callTop++] = root;
+            while(callTop>0){
+                int v = callStack[callTop-1];
+                if(iterators[v]<targetOffsets[v+1]){
+                    int w = targets[iterators[v]++];
+                    if(index[w]==-1){
+                        index[w] = low[w] = counter++;
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        iterators[w] = targetOffsets[w];
+                        callStack[callTop++] = w;
+                    }else if(onStack[w] && index[w]<low[v]){
+                        low[v] = index[w];
+                    }
+                }else{
+                    --callTop;
+                    if(callTop>0){
+                        int u = callStack[callTop-1];
+                        if(low[v]<low[u]){
+                            low[u] = low[v];
+                        }
+                    }
+                    if(low[v]==index[v]){ //v is the root of a component
+                        int w;
+                        do{
+                            w = stack[--top];
+                            onStack[w] = false;
+                            componentOf[w] = components;
+                        }while(w!=v);
+                        ++components;
+                    }
+                }
+            }
+        }
+
+        //Tarjan's algorithm finds the components in reverse topological order
+        memberOffsets = new int[components+1];
+        for(int v=0;v<n;++v){
+            componentOf[v] = components-1-componentOf[v];
+            memberOffsets[componentOf[v]+1]++;
+        }
+        for(int c=0;c<components;++c){
+            memberOffsets[c+1] += memberOffsets[c];
+        }
+        members = new int[n];
+        int[] pos = Arrays.copyOf(memberOffsets,components);
+        for(int v=0;v<n;++v){
+            members[pos[componentOf[v]]++] = v;
+        }
+
+        //the ID of a component is the ID of its first member
+        long[] IDs = new long[components];
+        for(int c=0;c<components;++c){
+            IDs[c] = g.getID(members[memberOffsets[c]]);
+        }
+        long[] edges = new long[targets.length];
+        int m = 0;
+        for(int v=0;v<n;++v){
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                int cs = componentOf[v];
+                int ct = componentOf[targets[j]];
+                if(cs!=ct){
+                    edges[m++] = ((long)cs<<32)|ct;
+                }
+            }
+        }
+        dag = CSRGraph.fromEdges(IDMap.of(IDs),Arrays.copyOf(edges,m));
+        GraphUtil.sortAdjLists(dag);
+    }
+
+    /**
+     * Computes the strongly connected components and the condensation of the graph.
+     * @param g a directed graph
+     */
+    public Condensation(DiGraph g){
+        this(new CSRGraph(g));
+    }
+
+    /**
+     * Returns the graph whose components were computed. For a DiGraph, it is its CSR copy.
+     */
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the condensation DAG. Its vertices are indexed by topological rank and its adjacency lists are sorted.
+     */
+    public CSRGraph getDAG() {
+        return dag;
+    }
+
+    /**
+     * Returns the component (the topological rank in the condensation DAG) of the vertex with index v.
+     */
+    public int getComponent(int v){
+        return componentOf[v];
+    }
+
+    /**
+     * Returns the component (the topological rank in the condensation DAG) of a vertex.
+     */
+    public int getComponent(Vertex v){
+        return componentOf[graph.getIndex(v.getID())];
+    }
+
+    public int[] getComponents() {
+        return componentOf;
+    }
+
+    public int componentsSize(){
+        return memberOffsets.length-1;
+    }
+
+    /**
+     * Returns the number of vertices in component c.
+     */
+    public int componentSize(int c){
+        return memberOffsets[c+1]-memberOffsets[c];
+    }
+
+    /**
+     * Returns the vertices of component c as members[getMemberOffsets()[c]..getMemberOffsets()[c+1]).
+     */
+    public int[] getMembers() {
+        return members;
+    }
+    public int[] getMemberOffsets() {
+        return memberOffsets;
+    }
+}
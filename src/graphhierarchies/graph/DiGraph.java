@@ -1,15 +1,19 @@
 package graphhierarchies.graph;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.function.BiConsumer;
 
 /**
  * The class represents a directed graph.
  */
 public class DiGraph {
-    private HashMap<Integer,Vertex> vertices;
+    private Vertex[] vertices;
+    private IDMap IDs;
     private int edges;
 
     public LinkedList<Edge> getEdgeListRepr() {
@@ -22,19 +26,59 @@ public class DiGraph {
         return edgelist;
     }
 
-    DiGraph(HashSet<Vertex> vertices) {
-        this.vertices = new HashMap<>();
+    /**
+     * Calls the action for every edge of the graph, without creating Edge objects.
+     * @param action the action that accepts the source and the target of every edge
+     */
+    public void forEachEdge(BiConsumer<Vertex,Vertex> action) {
         for(Vertex v:vertices){
-            this.vertices.put(v.getID(),v);
+            for (Vertex t:v.getAdjTargets()){
+                action.accept(v,t);
+            }
         }
     }
 
-    public int verticesSize(){return this.vertices.size();}
+    DiGraph(HashSet<Vertex> vertices) {
+        this(vertices.toArray(new Vertex[0]),-1);
+    }
+
+    /**
+     * @param vertices the vertices of the graph, the array is sorted by ID in place
+     * @param edges the number of edges or -1 to count them
+     */
+    DiGraph(Vertex[] vertices, int edges) {
+        this.vertices = vertices;
+        Arrays.sort(this.vertices, Comparator.comparingInt(Vertex::getID));
+        this.IDs = new IDMap(this.vertices.length);
+        for(Vertex v:this.vertices){
+            IDs.add(v.getID());
+        }
+        if(edges<0){
+            edges = 0;
+            for(Vertex v:this.vertices){
+                edges += v.getAdjTargets().size();
+            }
+        }
+        this.edges = edges;
+    }
+
+    public int verticesSize(){return this.vertices.length;}
+
+    /**
+     * Returns the number of edges in O(1) time. The number is set when the graph is created, hence, it does not follow
+     * later changes to the adjacency lists of the vertices, e.g., by ChainDecomposition.sparsify.
+     */
+    public int edgesSize(){return this.edges;}
+
+    /**
+     * Returns the vertices of the graph in ascending order of their IDs.
+     */
     public Collection<Vertex> getVertices() {
-        return vertices.values();
+        return Collections.unmodifiableList(Arrays.asList(vertices));
     }
     public Vertex getVertex(int ID){
-        return this.vertices.get(ID);
+        int index = IDs.getIndex(ID);
+        return index==-1 ? null : this.vertices[index];
     }
 
 }
@@ -0,0 +1,256 @@
+package graphhierarchies.graph;
+
+import java.util.Arrays;
+
+/**
+ * The class represents a directed acyclic graph that grows by vertex and edge insertions and keeps a topological
+ * order of its vertices up to date. Vertices are identified by an index in [0,n) in insertion order and their
+ * position in the topological order is given by getOrder. The adjacency lists are linked lists over primitive arrays.
+ * <br>The order is maintained with the algorithm of Pearce and Kelly: an edge (u,v) that agrees with the order
+ * costs O(1), otherwise only the vertices whose order lies between v and u and that are reached from v or reach u
+ * are reordered. A new vertex is placed at the end of the order, unless it is created as the source of an edge,
+ * then it is placed at the beginning, so the edges of new vertices never reorder the graph.
+ */
+public class DynamicDAG {
+    private final IDMap IDs;
+    private int n = 0;
+    private int m = 0;
+    private int[] order = new int[16];      //the position of every vertex, positions lowest..highest are in use
+    private int[] vertexAt = new int[16];   //the vertex at every position, as a ring buffer
+    private int lowest = 0, highest = -1;
+    private int[] outHead = new int[16];
+    private int[] inHead = new int[16];
+
+    //the edges, every edge is in the list of its source and in the list of its target
+    private int[] edgeSource = new int[16];
+    private int[] edgeTarget = new int[16];
+    private int[] nextOut = new int[16];
+    private int[] nextIn = new int[16];
+
+    private int[] marks = new int[16];
+    private int epoch = 0;
+    private int[] stack = new int[16];
+    private int[] forward = new int[16];
+    private int[] backward = new int[16];
+
+    public DynamicDAG(){
+        IDs = new IDMap();
+    }
+
+    /**
+     * Creates a copy of a directed acyclic graph in CSR form whose vertices are indexed by topological rank.
+     * Every vertex keeps its index and the initial topological order is the order of the indices.
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     */
+    public DynamicDAG(CSRGraph g){
+        IDs = new IDMap(g.verticesSize());
+        for(int v=0;v<g.verticesSize();++v){
+            addVertex(g.getID(v));
+        }
+        g.forEachEdge(this::link);
+    }
+
+    /**
+     * Adds a vertex with the given external ID at the end of the topological order.
+     * @return the index of the vertex, or the index it already had
+     */
+    public int addVertex(long ID){
+        return addVertex(ID,false);
+    }
+
+    private int addVertex(long ID, boolean isFirst){
+        int v = IDs.add(ID);
+        if(v<n){
+            return v;
+        }
+        if(n==order.length){
+            int size = 2*n;
+            int[] ring = new int[size];
+            for(int p=lowest;p<=highest;++p){
+                ring[p&(size-1)] = vertexAt[p&(n-1)];
+            }
+            vertexAt = ring;
+            order = Arrays.copyOf(order,size);
+            outHead = Arrays.copyOf(outHead,size);
+            inHead = Arrays.copyOf(inHead,size);
+            marks = Arrays.copyOf(marks,size);
+            stack = Arrays.copyOf(stack,size);
+            forward = Arrays.copyOf(forward,size);
+            backward = Arrays.copyOf(backward,size);
+        }
+        order[v] = isFirst ? --lowest : ++highest;
+        vertexAt[order[v]&(vertexAt.length-1)] = v;
+        outHead[v] = -1;
+        inHead[v] = -1;
+        ++n;
+        return v;
+    }
+
+    /**
+     * Adds an edge from the vertex with id source to the vertex with id target, adding the vertices that do not
+     * exist (the source at the beginning of the order and the target at the end). If the edge is a self-loop or
+     * closes a cycle, the graph is left unchanged, no vertex is added, and it returns false. A cycle is closed only
+     * by an edge between two existing vertices, hence, the vertices are added after the check. Parallel edges are
+     * kept and removed by toCSRGraph.
+     * @return true if the edge is added, otherwise, false.
+     */
+    public boolean addEdge(long source, long target){
+        if(source==target){
+            return false;
+        }
+        int u = IDs.getIndex(source);
+        int v = IDs.getIndex(target);
+        if(u!=-1 && v!=-1 && order[u]>order[v] && !reorder(u,v)){
+            return false;
+        }
+        link(addVertex(source,true),addVertex(target,false));
+        return true;
+    }
+
+    private void link(int u, int v){
+        if(m==edgeSource.length){
+            int size = 2*m;
+            edgeSource = Arrays.copyOf(edgeSource,size);
+            edgeTarget = Arrays.copyOf(edgeTarget,size);
+            nextOut = Arrays.copyOf(nextOut,size);
+            nextIn = Arrays.copyOf(nextIn,size);
+        }
+        edgeSource[m] = u;
+        edgeTarget[m] = v;
+        nextOut[m] = outHead[u];
+        outHead[u] = m;
+        nextIn[m] = inHead[v];
+        inHead[v] = m;
+        ++m;
+    }
+
+    /**
+     * Restores the topological order before the edge (u,v) is added, where order[u]&gt;order[v]. The vertices that
+     * are reached from v and precede u, and the vertices that reach u and follow v, share their positions, the
+     * second set before the first one. It returns false if v reaches u.
+     */
+    private boolean reorder(int u, int v){
+        int lo = order[v], hi = order[u];
+        ++epoch;
+        int f = search(v,hi,true,forward);
+        if(f==-1){
+            return false;
+        }
+        int b = search(u,lo,false,backward);
+        sortByOrder(forward,f);
+        sortByOrder(backward,b);
+
+        //the positions of both sets, in ascending order
+        int[] positions = new int[f+b];
+        for(int i=0;i<b;++i){
+            positions[i] = order[backward[i]];
+        }
+        for(int i=0;i<f;++i){
+            positions[b+i] = order[forward[i]];
+        }
+        Arrays.sort(positions);
+        for(int i=0;i<b;++i){
+            order[backward[i]] = positions[i];
+            vertexAt[positions[i]&(vertexAt.length-1)] = backward[i];
+        }
+        for(int i=0;i<f;++i){
+            order[forward[i]] = positions[b+i];
+            vertexAt[positions[b+i]&(vertexAt.length-1)] = forward[i];
+        }
+        return true;
+    }
+
+    /**
+     * Collects in out the vertices that are reached from root (forward) or reach root (backward) without leaving
+     * the positions up to bound (forward) or from bound (backward). It returns the number of the vertices or -1
+     * if a forward search visits the vertex at position bound.
+     */
+    private int search(int root, int bound, boolean isForward, int[] out){
+        int size = 0, top = 0;
+        stack[top++] = root;
+        marks[root] = epoch;
+        while(top>0){
+            int x = stack[--top];
+            out[size++] = x;
+            int e = isForward ? outHead[x] : inHead[x];
+            while(e!=-1){
+                int w = isForward ? edgeTarget[e] : edgeSource[e];
+                if(isForward && order[w]==bound){
+                    return -1;
+                }
+                if(marks[w]!=epoch && (isForward ? order[w]<bound : order[w]>bound)){
+                    marks[w] = epoch;
+                    stack[top++] = w;
+                }
+                e = isForward ? nextOut[e] : nextIn[e];
+            }
+        }
+        return size;
+    }
+
+    private void sortByOrder(int[] vertices, int size){
+        long[] keys = new long[size];
+        for(int i=0;i<size;++i){
+            keys[i] = (long)order[vertices[i]]<<32 | vertices[i];
+        }
+        Arrays.sort(keys);
+        for(int i=0;i<size;++i){
+            vertices[i] = (int)keys[i];
+        }
+    }
+
+    /**
+     * Returns a CSR copy of the graph whose vertices are indexed by their position in the topological order.
+     * Parallel edges are removed and the adjacency lists are sorted (GraphUtil.sortAdjLists).
+     */
+    public CSRGraph toCSRGraph(){
+        long[] vertexIDs = new long[n];
+        for(int i=0;i<n;++i){
+            vertexIDs[i] = IDs.getID(getVertex(i));
+        }
+        long[] edges = new long[m];
+        for(int e=0;e<m;++e){
+            edges[e] = (long)getOrder(edgeSource[e])<<32 | getOrder(edgeTarget[e]);
+        }
+        CSRGraph g = CSRGraph.fromEdges(IDMap.of(vertexIDs),edges);
+        GraphUtil.sortAdjLists(g);
+        return g;
+    }
+
+    public int verticesSize(){return n;}
+
+    /**
+     * Returns the number of edges, including parallel edges.
+     */
+    public int edgesSize(){return m;}
+
+    /**
+     * Returns the position of vertex v in the topological order.
+     */
+    public int getOrder(int v){return order[v]-lowest;}
+
+    /**
+     * Returns the vertex at position i of the topological order.
+     */
+    public int getVertex(int i){return vertexAt[(i+lowest)&(vertexAt.length-1)];}
+    public long getID(int v){return IDs.getID(v);}
+
+    /**
+     * Returns the index of the vertex with the given external ID or -1 if there is no such vertex.
+     */
+    public int getIndex(long ID){return IDs.getIndex(ID);}
+
+    /**
+     * Returns the first outgoing edge of vertex v or -1. The next ones are given by nextOutEdge.
+     */
+    public int firstOutEdge(int v){return outHead[v];}
+    public int nextOutEdge(int e){return nextOut[e];}
+
+    /**
+     * Returns the first incoming edge of vertex v or -1. The next ones are given by nextInEdge.
+     */
+    public int firstInEdge(int v){return inHead[v];}
+    public int nextInEdge(int e){return nextIn[e];}
+    public int edgeSource(int e){return edgeSource[e];}
+    public int edgeTarget(int e){return edgeTarget[e];}
+}
@@ -0,0 +1,9 @@
+package graphhierarchies.graph;
+
+/**
+ * An action that accepts an edge of a CSRGraph as a pair of vertex indices.
+ */
+@FunctionalInterface
+public interface EdgeConsumer {
+    public void accept(int source, int target);
+}
@@ -0,0 +1,275 @@
+package graphhierarchies.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A parallel edge list parser. The input file is split into chunks at line boundaries, every chunk is memory mapped
+ * and parsed by a different thread straight from its bytes into primitive arrays. Then, the 64-bit vertex IDs are mapped
+ * to dense indices through an IDMap and the parallel edges and self-loops are removed by sorting the edges.
+ */
+class EdgeListParser {
+    private static final int MIN_CHUNK_SIZE = 1<<20;
+    private static final int MAX_CHUNK_SIZE = 1<<28;
+
+    private EdgeListParser() {}
+
+    /**
+     * A part of the input file that is parsed by a single thread.
+     */
+    static class Chunk {
+        final long start;
+        final long end;
+        long[] sources = new long[16];
+        long[] targets = new long[16];
+        int edges;
+        long[] singles = new long[4];
+        int singlesSize;
+        int lines;
+        int errorLine = -1;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        void addEdge(long source, long target){
+            if(edges==sources.length){
+                sources = Arrays.copyOf(sources,edges*2);
+                targets = Arrays.copyOf(targets,edges*2);
+            }
+            sources[edges] = source;
+            targets[edges] = target;
+            ++edges;
+        }
+        void addSingle(long id){
+            if(singlesSize==singles.length){
+                singles = Arrays.copyOf(singles,singlesSize*2);
+            }
+            singles[singlesSize++] = id;
+        }
+
+        void parse(FileChannel channel){
+            ByteBuffer buf;
+            try {
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            parse(buf);
+        }
+
+        /**
+         * Parses every line of the buffer. A line is "x,y", "x" or "". Characters after a second comma are ignored.
+         */
+        void parse(ByteBuffer buf){
+            int limit = buf.limit();
+            int pos = buf.position();
+            long[] value = new long[1];
+            while (pos<limit){
+                ++lines;
+                byte b = buf.get(pos);
+                if(b=='\n'){
+                    ++pos;
+                    continue;
+                }
+                if(b=='\r'){
+                    pos = skipLineEnd(buf,pos,limit);
+                    continue;
+                }
+                pos = parseLong(buf,pos,limit,value);
+                if(pos<0){
+                    errorLine = lines;
+                    return;
+                }
+                long x = value[0];
+                if(pos==limit || buf.get(pos)=='\n' || buf.get(pos)=='\r'){
+                    addSingle(x);
+                    pos = skipLineEnd(buf,pos,limit);
+                    continue;
+                }
+                if(buf.get(pos)!=','){
+                    errorLine = lines;
+                    return;
+                }
+                pos = parseLong(buf,pos+1,limit,value);
+                if(pos<0){
+                    errorLine = lines;
+                    return;
+                }
+                addEdge(x,value[0]);
+                if(pos<limit && buf.get(pos)==','){
+                    while(pos<limit && buf.get(pos)!='\n' && buf.get(pos)!='\r'){
+                        ++pos;
+                    }
+                }else if(pos<limit && buf.get(pos)!='\n' && buf.get(pos)!='\r'){
+                    errorLine = lines;
+                    return;
+                }
+                pos = skipLineEnd(buf,pos,limit);
+            }
+        }
+    }
+
+    private static int skipLineEnd(ByteBuffer buf, int pos, int limit){
+        if(pos<limit && buf.get(pos)=='\r'){
+            ++pos;
+        }
+        if(pos<limit && buf.get(pos)=='\n'){
+            ++pos;
+        }
+        return pos;
+    }
+
+    /**
+     * Parses a decimal 64-bit integer that starts at position pos. It stores the integer in value[0] and returns the
+     * position after the last digit or -1 if there is not a valid integer.
+     */
+    private static int parseLong(ByteBuffer buf, int pos, int limit, long[] value){
+        boolean negative = false;
+        if(pos<limit && buf.get(pos)=='-'){
+            negative = true;
+            ++pos;
+        }
+        int start = pos;
+        long v = 0;
+        while(pos<limit){
+            int d = buf.get(pos)-'0';
+            if(d<0 || d>9){
+                break;
+            }
+            if(v>(Long.MAX_VALUE-d)/10){
+                return -1;
+            }
+            v = v*10+d;
+            ++pos;
+        }
+        if(pos==start){
+            return -1;
+        }
+        value[0] = negative ? -v : v;
+        return pos;
+    }
+
+    /**
+     * Parses the edge list file in parallel and returns the graph in CSR form. The vertices are indexed in ascending
+     * order of their IDs.
+     */
+    static CSRGraph parse(File textfile){
+        try (FileChannel channel = FileChannel.open(textfile.toPath(), StandardOpenOption.READ)) {
+            Chunk[] chunks = split(channel);
+            Arrays.stream(chunks).parallel().forEach(c -> c.parse(channel));
+
+            int line = 1;
+            for(Chunk c:chunks){
+                if(c.errorLine!=-1){
+                    System.out.println("Invalid file format: "+textfile.getName()+" file format caused exception in line "+(line+c.errorLine-1));
+                    throw new NumberFormatException();
+                }
+                line += c.lines;
+            }
+            return build(chunks);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Splits the file into chunks. Every chunk, except the first, starts right after a line break.
+     */
+    private static Chunk[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int threads = Runtime.getRuntime().availableProcessors();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size/(4L*threads)+1));
+        int count = (int)((size+chunkSize-1)/chunkSize);
+        long[] bounds = new long[count+1];
+        ByteBuffer probe = ByteBuffer.allocate(256);
+        for(int i=1;i<count;++i){
+            long pos = Math.max(bounds[i-1], i*chunkSize);
+            boolean found = false;
+            while(!found && pos<size){
+                probe.clear();
+                int read = channel.read(probe,pos);
+                if(read<=0){
+                    break;
+                }
+                for(int j=0;j<read;++j){
+                    if(probe.get(j)=='\n'){
+                        pos += j+1;
+                        found = true;
+                        break;
+                    }
+                }
+                if(!found){
+                    pos += read;
+                }
+            }
+            bounds[i] = Math.min(pos,size);
+        }
+        bounds[count] = size;
+        Chunk[] chunks = new Chunk[count];
+        for(int i=0;i<count;++i){
+            chunks[i] = new Chunk(bounds[i],bounds[i+1]);
+        }
+        return chunks;
+    }
+
+    /**
+     * Maps the vertex IDs of the chunks to dense indices, removes parallel edges and self-loops and returns the
+     * graph in CSR form.
+     */
+    static CSRGraph build(Chunk... chunks){
+        long idCount = 0;
+        long[] edgeOffsets = new long[chunks.length+1];
+        for(int i=0;i<chunks.length;++i){
+            idCount += 2L*chunks[i].edges + chunks[i].singlesSize;
+            edgeOffsets[i+1] = edgeOffsets[i] + chunks[i].edges;
+        }
+        if(idCount>Integer.MAX_VALUE-8 || edgeOffsets[chunks.length]>Integer.MAX_VALUE-8){
+            throw new OutOfMemoryError("Too many edges for the edge list parser");
+        }
+
+        //collect, sort and deduplicate the vertex IDs
+        long[] ids = new long[(int)idCount];
+        int pos = 0;
+        for(Chunk c:chunks){
+            System.arraycopy(c.sources,0,ids,pos,c.edges);
+            pos += c.edges;
+            System.arraycopy(c.targets,0,ids,pos,c.edges);
+            pos += c.edges;
+            System.arraycopy(c.singles,0,ids,pos,c.singlesSize);
+            pos += c.singlesSize;
+            c.singles = null;
+        }
+        Arrays.parallelSort(ids);
+        int n = 0;
+        for(int i=0;i<ids.length;++i){
+            if(n==0 || ids[n-1]!=ids[i]){
+                ids[n++] = ids[i];
+            }
+        }
+        long[] IDs = Arrays.copyOf(ids,n);
+        ids = null;
+        IDMap map = IDMap.of(IDs);
+
+        //encode every edge as (source index, target index) and remove self-loops
+        long[] edges = new long[(int)edgeOffsets[chunks.length]];
+        IntStream.range(0,chunks.length).parallel().forEach(i -> {
+            Chunk c = chunks[i];
+            int e = (int)edgeOffsets[i];
+            for(int j=0;j<c.edges;++j){
+                long s = map.getIndex(c.sources[j]);
+                long t = map.getIndex(c.targets[j]);
+                edges[e++] = s==t ? -1 : (s<<32)|t;
+            }
+            c.sources = null;
+            c.targets = null;
+        });
+        return CSRGraph.fromEdges(map,edges);
+    }
+}
@@ -0,0 +1,88 @@
+package graphhierarchies.graph;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A spliterator over the edges targets[from..to) of a CSRGraph. Every edge is encoded as (source &lt;&lt; 32 | target).
+ * It splits on edge ranges, so the parts have equal numbers of edges regardless of the degree distribution.
+ */
+class EdgeSpliterator implements Spliterator.OfLong {
+    private final int[] targetOffsets;
+    private final int[] targets;
+    private int index;
+    private final int end;
+    private int source;
+
+    EdgeSpliterator(int[] targetOffsets, int[] targets, int from, int to) {
+        this.targetOffsets = targetOffsets;
+        this.targets = targets;
+        this.index = from;
+        this.end = to;
+        this.source = sourceOf(from);
+    }
+
+    /**
+     * Returns the source vertex of the edge at position j with a binary search on the offsets.
+     */
+    private int sourceOf(int j){
+        int n = targetOffsets.length-1;
+        int v = Arrays.binarySearch(targetOffsets,0,n+1,j);
+        if(v<0){
+            return -v-2;
+        }
+        while(v<n-1 && targetOffsets[v+1]==j){ //skip vertices without edges
+            ++v;
+        }
+        return v;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if(index>=end){
+            return false;
+        }
+        while(targetOffsets[source+1]<=index){
+            ++source;
+        }
+        action.accept(((long)source<<32)|targets[index]);
+        ++index;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        int v = source;
+        for(int j=index;j<end;++j){
+            while(targetOffsets[v+1]<=j){
+                ++v;
+            }
+            action.accept(((long)v<<32)|targets[j]);
+        }
+        index = end;
+        source = v;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        int mid = (index+end)>>>1;
+        if(mid-index<1024){
+            return null;
+        }
+        EdgeSpliterator prefix = new EdgeSpliterator(targetOffsets,targets,index,mid);
+        index = mid;
+        source = sourceOf(mid);
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end-index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED|SIZED|SUBSIZED|NONNULL|IMMUTABLE;
+    }
+}
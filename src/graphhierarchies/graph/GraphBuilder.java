@@ -0,0 +1,136 @@
+package graphhierarchies.graph;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+
+/**
+ * The class builds a graph incrementally from edges that arrive one at a time. The edges are kept in primitive arrays
+ * and the text of the input is parsed in fixed-size blocks, so the builder never holds the whole input. Parallel edges
+ * and self-loops are removed when the graph is built.
+ */
+public class GraphBuilder {
+    private static final int BLOCK_SIZE = 1<<16;
+
+    private EdgeListParser.Chunk edges = new EdgeListParser.Chunk(0,0);
+
+    /**
+     * Adds an edge from the vertex with id source to the vertex with id target.
+     */
+    public GraphBuilder addEdge(long source, long target){
+        edges.addEdge(source,target);
+        return this;
+    }
+
+    /**
+     * Adds a single vertex. Vertices that are endpoints of edges do not need to be added.
+     */
+    public GraphBuilder addVertex(long ID){
+        edges.addSingle(ID);
+        return this;
+    }
+
+    /**
+     * Adds every element of the iterator. An element of length two is an edge from the vertex with id pair[0] to
+     * the vertex with id pair[1], while an element of length one is a single vertex.
+     * @param pairs an iterator of edges and single vertices
+     */
+    public GraphBuilder addEdges(Iterator<int[]> pairs){
+        while(pairs.hasNext()){
+            int[] pair = pairs.next();
+            if(pair.length==1){
+                addVertex(pair[0]);
+            }else{
+                addEdge(pair[0],pair[1]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Reads an edge list (see Reader.ReadEdgeList) from the input stream until the end of the stream.
+     * The stream is not closed.
+     */
+    public GraphBuilder read(InputStream in){
+        return read(Channels.newChannel(in));
+    }
+
+    /**
+     * Reads an edge list (see Reader.ReadEdgeList) from the channel until the end of the stream.
+     * The channel is not closed. If the input has an invalid format, it throws a NumberFormatException.
+     */
+    public GraphBuilder read(ReadableByteChannel channel){
+        ByteBuffer buf = ByteBuffer.allocate(BLOCK_SIZE);
+        try {
+            while(channel.read(buf)>=0){
+                if(buf.hasRemaining()){
+                    continue;
+                }
+                //the block is cut after the last line end, '\n' or '\r'. A '\r' at the end of the block may be the
+                //first half of "\r\n", so the block is cut before its line
+                int end = buf.position();
+                if(buf.get(end-1)=='\r'){
+                    --end;
+                }
+                while(end>0 && buf.get(end-1)!='\n' && buf.get(end-1)!='\r'){
+                    --end;
+                }
+                if(end==0){ //a line longer than the block
+                    ByteBuffer bigger = ByteBuffer.allocate(buf.capacity()*2);
+                    buf.flip();
+                    bigger.put(buf);
+                    buf = bigger;
+                    continue;
+                }
+                parse(buf,end);
+            }
+            parse(buf,buf.position());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Parses the first end bytes of the buffer and moves the rest of the bytes to the beginning.
+     */
+    private void parse(ByteBuffer buf, int end){
+        int position = buf.position();
+        buf.position(0).limit(end);
+        edges.parse(buf);
+        if(edges.errorLine!=-1){
+            int line = edges.errorLine;
+            edges.errorLine = -1;
+            System.out.println("Invalid format: stream format caused exception in line "+line);
+            throw new NumberFormatException();
+        }
+        buf.limit(position).position(end);
+        buf.compact();
+    }
+
+    /**
+     * Returns the number of edges that were added, including parallel edges and self-loops.
+     */
+    public int edgesSize(){
+        return edges.edges;
+    }
+
+    /**
+     * Returns the graph in CSR form. The vertices are indexed in ascending order of their IDs. The builder is reset.
+     */
+    public CSRGraph build(){
+        EdgeListParser.Chunk chunk = edges;
+        edges = new EdgeListParser.Chunk(0,0);
+        return EdgeListParser.build(chunk);
+    }
+
+    /**
+     * Returns the graph as a DiGraph. The builder is reset.
+     */
+    public DiGraph buildDiGraph(){
+        return build().toDiGraph();
+    }
+}
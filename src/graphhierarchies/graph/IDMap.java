@@ -0,0 +1,118 @@
+package graphhierarchies.graph;
+
+import java.util.Arrays;
+
+/**
+ * The class is a dictionary that assigns dense indices 0,1,2,... to external 64-bit vertex IDs. It is an open
+ * addressing hash table with linear probing over primitive arrays, hence, both directions of the translation
+ * take O(1) time and no object is allocated per vertex. Lookups are safe to run in parallel as long as no vertex
+ * is added.
+ */
+public class IDMap {
+    private long[] keys;
+    private int[] values; // index+1, 0 marks an empty slot
+    private long[] IDs;
+    private int size;
+    private int mask;
+
+    public IDMap(){
+        this(16);
+    }
+
+    /**
+     * Creates an empty dictionary that holds the given number of IDs without resizing.
+     */
+    public IDMap(int expectedSize){
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) * 2;
+        keys = new long[capacity];
+        values = new int[capacity];
+        IDs = new long[Math.max(4, expectedSize)];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Creates a dictionary where IDs[i] gets index i. The IDs must be distinct.
+     */
+    public static IDMap of(long[] IDs){
+        IDMap map = new IDMap(IDs.length);
+        for(long ID : IDs){
+            map.add(ID);
+        }
+        return map;
+    }
+
+    private static int hash(long key){
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Returns the index of the ID or -1 if the ID is not in the dictionary.
+     */
+    public int getIndex(long ID){
+        int slot = hash(ID) & mask;
+        while(values[slot] != 0){
+            if(keys[slot] == ID){
+                return values[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the ID. If the ID is not in the dictionary, it assigns to it the next free index.
+     */
+    public int add(long ID){
+        int slot = hash(ID) & mask;
+        while(values[slot] != 0){
+            if(keys[slot] == ID){
+                return values[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if(size == IDs.length){
+            IDs = Arrays.copyOf(IDs, size * 2);
+        }
+        IDs[size] = ID;
+        keys[slot] = ID;
+        values[slot] = ++size;
+        if(2 * size > keys.length){
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Returns the external ID of the vertex with the given index.
+     */
+    public long getID(int index){
+        return IDs[index];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    private void rehash(){
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for(int i = 0; i < oldKeys.length; ++i){
+            if(oldValues[i] != 0){
+                int slot = hash(oldKeys[i]) & mask;
+                while(values[slot] != 0){
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
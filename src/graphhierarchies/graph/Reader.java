@@ -1,18 +1,26 @@
 package graphhierarchies.graph;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Scanner;
-import java.util.TreeSet;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.zip.GZIPInputStream;
 
 /**
  * The class provides static methods that read input graphs in proper format and create directed graph instances (DiGraph).
  */
 public class Reader {
     /**
-     * The method read the input file and create a DiGraph without parallel edges and self-loops. Each line of the input file
+     * The method read the input file and create a DiGraph without parallel edges and self-loops. The file may be
+     * gzip-compressed. Each line of the input file
      * must have one of the following forms:<br>
      * 1)"x,y" where x,y are decimal integers. The line represents an edge from the vertex with id x to the vertex with id y.
      * For example, the line "5,6" represents an edge from vertex 5 to vertex 6.<br>
@@ -23,42 +31,79 @@ public class Reader {
      * @return an instance of DiGraph according to the input file
      */
     public static DiGraph ReadEdgeList(File textfile){
-        HashMap<Integer,TreeSet<Integer>[]> adjs = new HashMap<>();
-        HashMap<Integer, Vertex> nodes = new HashMap<>();
-        Scanner sc;
-        try {
-            sc = new Scanner(textfile);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-        Integer line = 1;
-        try {
-            while (sc.hasNextLine()) {
-                String data = sc.nextLine();
-                parseLine(data, adjs, nodes, line);
-                ++line;
+        return ReadCSRGraph(textfile).toDiGraph();
+    }
+
+    /**
+     * The method reads the input file in parallel and creates a graph in CSR form without parallel edges and self-loops.
+     * The input file must have the format that ReadEdgeList(File) describes. A gzip-compressed file is decompressed and
+     * parsed as a stream. The vertices are indexed in ascending order of their IDs.
+     *
+     * @param textfile is the input file that represents a graph.
+     * @return an instance of CSRGraph according to the input file
+     */
+    public static CSRGraph ReadCSRGraph(File textfile){
+        if(isCompressed(textfile)){
+            try (InputStream in = new GZIPInputStream(new FileInputStream(textfile))) {
+                return new GraphBuilder().read(in).build();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
-        }catch (ArrayIndexOutOfBoundsException e){
-            System.out.println("Invalid file format: "+textfile.getName()+" file format caused exception in line "+line);
-            throw new ArrayIndexOutOfBoundsException();
-        }catch (NumberFormatException e){
-            System.out.println("Invalid file format: "+textfile.getName()+" file format caused exception in line "+line);
-            throw new NumberFormatException();
         }
+        return EdgeListParser.parse(textfile);
+    }
 
-        for(Vertex n: nodes.values()){
-            for( Integer i:adjs.get(n.getID())[0]  ){
-                n.addAdjSource(nodes.get(i));
+    /**
+     * The method opens a file in the binary graph format (see Writer.WriteBinaryGraph) by memory mapping it. There is no
+     * parsing, but the load is not zero-copy: every section is copied in bulk from the mapped file into new arrays and
+     * the vertex IDs are hashed into the ID map, which takes O(|V|+|E|) time. If the file is marked as topologically
+     * sorted, the index of every vertex is its topological rank and the adjacency lists are sorted (see
+     * CSRGraph.isTopologicallySorted), hence, GraphUtil.setTopologicalRank and GraphUtil.sortAdjLists return without
+     * changing the graph.
+     * <br>It throws an IllegalArgumentException if the file is not a binary graph file or its size does not match the
+     * number of vertices and edges of its header, e.g. if it is truncated.
+     *
+     * @param binfile is the input file in the binary graph format.
+     * @return an instance of CSRGraph according to the input file
+     */
+    public static CSRGraph ReadBinaryGraph(File binfile){
+        try (FileChannel channel = FileChannel.open(binfile.toPath(), StandardOpenOption.READ)) {
+            if(channel.size()<BinaryFormat.HEADER_SIZE){
+                throw new IllegalArgumentException("Invalid file format: "+binfile.getName()+" is too short for a binary graph file");
+            }
+            int[] header = BinaryFormat.readInts(channel,0,BinaryFormat.HEADER_SIZE/4);
+            if(header[0]!=BinaryFormat.MAGIC){
+                throw new IllegalArgumentException("Invalid file format: "+binfile.getName()+" is not a binary graph file");
+            }
+            if(header[1]!=BinaryFormat.VERSION){
+                throw new IllegalArgumentException("Invalid file format: "+binfile.getName()+" has version "+header[1]
+                        +", expected "+BinaryFormat.VERSION);
+            }
+            int n = header[3];
+            int m = header[4];
+            if(n<0 || m<0 || n==Integer.MAX_VALUE){
+                throw new IllegalArgumentException("Invalid file format: "+binfile.getName()+" has "+n+" vertices and "+m+" edges");
             }
-            for( Integer i:adjs.get(n.getID())[1]  ){
-                n.addAdjTarget(nodes.get(i));
+            if(channel.size()!=BinaryFormat.fileSize(n,m)){
+                throw new IllegalArgumentException("Invalid file format: "+binfile.getName()+" has "+channel.size()
+                        +" bytes, expected "+BinaryFormat.fileSize(n,m)+" for "+n+" vertices and "+m+" edges");
             }
+            long pos = BinaryFormat.HEADER_SIZE;
+            IDMap IDs = IDMap.of(BinaryFormat.readLongs(channel,pos,n));
+            pos += 8L*n;
+            int[] targetOffsets = BinaryFormat.readInts(channel,pos,n+1);
+            pos += 4L*(n+1);
+            int[] targets = BinaryFormat.readInts(channel,pos,m);
+            pos += 4L*m;
+            int[] sourceOffsets = BinaryFormat.readInts(channel,pos,n+1);
+            pos += 4L*(n+1);
+            int[] sources = BinaryFormat.readInts(channel,pos,m);
+            CSRGraph g = new CSRGraph(IDs,targetOffsets,targets,sourceOffsets,sources);
+            g.setTopologicallySorted((header[2]&BinaryFormat.TOPOLOGICAL)!=0);
+            return g;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-
-        HashSet<Vertex> graph_vertices = new HashSet<>();
-        graph_vertices.addAll(nodes.values());
-
-        return (new DiGraph(graph_vertices));
     }
 
     /**
@@ -73,94 +118,69 @@ public class Reader {
      * @return an instance of DiGraph according to the input string
      */
     public static DiGraph ReadEdgeList(String inputstr){
-        HashMap<Integer,TreeSet<Integer>[]> adjs = new HashMap<>();
-        HashMap<Integer, Vertex> nodes = new HashMap<>();
-        Integer line = 1;
-        try {
-            String[] data = inputstr.split("\\r?\\n|\\r");
-            for(String edge:data){
-                parseLine(edge, adjs, nodes, line);
-                ++line;
-            }
-        }catch (ArrayIndexOutOfBoundsException e){
-            System.out.println("Invalid format: string format caused exception in line "+line);
-            throw new ArrayIndexOutOfBoundsException();
-        }catch (NumberFormatException e){
-            System.out.println("Invalid format: string format caused exception in line "+line);
-            throw new NumberFormatException();
-        }
+        return new GraphBuilder().read(new ByteArrayInputStream(inputstr.getBytes(StandardCharsets.UTF_8))).buildDiGraph();
+    }
 
-        for(Vertex n: nodes.values()){
-            for( Integer i:adjs.get(n.getID())[0]  ){
-                n.addAdjSource(nodes.get(i));
-            }
-            for( Integer i:adjs.get(n.getID())[1]  ){
-                n.addAdjTarget(nodes.get(i));
-            }
+    /**
+     * The method reads the input stream until its end and creates a DiGraph without parallel edges and self-loops. The
+     * input must have the format that ReadEdgeList(File) describes and may be gzip-compressed. The text is parsed in
+     * fixed-size blocks, hence, the stream can be a pipe of arbitrary length. The stream is not closed.
+     *
+     * @param in is the input stream that represents a graph.
+     * @return an instance of DiGraph according to the input stream
+     */
+    public static DiGraph ReadEdgeList(InputStream in){
+        try {
+            return new GraphBuilder().read(decompress(in)).buildDiGraph();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-
-        HashSet<Vertex> graph_vertices = new HashSet<>();
-        graph_vertices.addAll(nodes.values());
-
-        return (new DiGraph(graph_vertices));
     }
-    private static int parseLine(String data, HashMap<Integer,TreeSet<Integer>[]> adjs, HashMap<Integer, Vertex> nodes, Integer line){
-        if(data==""){
-            return 0;
-        }
-        String[] edge = data.split(",");
-        if(edge.length==1){
-            int id = Integer.parseInt(edge[0]);
-            nodes.put(id, new Vertex(id));
 
-            TreeSet<Integer>[] adjs_v = adjs.get(id);
-            if (adjs_v == null) {
-                TreeSet<Integer> sources = new TreeSet<>();
-                TreeSet<Integer> targets = new TreeSet<>();
-                TreeSet<Integer> tmp[] = new TreeSet[2];
-                tmp[0] = sources;
-                tmp[1] = targets;
-                adjs.put(id, tmp);
-            }
-            return 0;
-        }else {
-            int sourceid = Integer.parseInt(edge[0]);
-            int targetid = Integer.parseInt(edge[1]);
-            if (sourceid == targetid) {
-                return 0;
-            }
-            nodes.put(sourceid, new Vertex(sourceid));
-            nodes.put(targetid, new Vertex(targetid));
+    /**
+     * The method reads the channel until its end and creates a DiGraph without parallel edges and self-loops.
+     * See ReadEdgeList(InputStream).
+     *
+     * @param channel is the input channel that represents a graph.
+     * @return an instance of DiGraph according to the input channel
+     */
+    public static DiGraph ReadEdgeList(ReadableByteChannel channel){
+        return ReadEdgeList(Channels.newInputStream(channel));
+    }
 
-            TreeSet<Integer>[] adjsTarget = adjs.get(targetid);
-            TreeSet<Integer>[] adjsSource = adjs.get(sourceid);
+    /**
+     * The method creates a DiGraph without parallel edges and self-loops from an iterator. An element of length two is
+     * an edge from the vertex with id pair[0] to the vertex with id pair[1], while an element of length one is a
+     * single vertex.
+     *
+     * @param pairs an iterator of edges and single vertices
+     * @return an instance of DiGraph according to the iterator
+     */
+    public static DiGraph ReadEdgeList(Iterator<int[]> pairs){
+        return new GraphBuilder().addEdges(pairs).buildDiGraph();
+    }
 
-            if (adjsTarget != null) {
-                TreeSet<Integer> sources = adjsTarget[0];
-                sources.add(sourceid);
-            } else {
-                TreeSet<Integer> sources = new TreeSet<>();
-                TreeSet<Integer> targets = new TreeSet<>();
-                sources.add(sourceid);
-                TreeSet<Integer> tmp[] = new TreeSet[2];
-                tmp[0] = sources;
-                tmp[1] = targets;
-                adjs.put(targetid, tmp);
-            }
+    /**
+     * Returns a stream that decompresses the input if it starts with the gzip magic number, otherwise,
+     * a stream with the same content.
+     */
+    private static InputStream decompress(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        if(b1==(GZIPInputStream.GZIP_MAGIC&0xff) && b2==(GZIPInputStream.GZIP_MAGIC>>>8)){
+            return new GZIPInputStream(buffered);
+        }
+        return buffered;
+    }
 
-            if (adjsSource != null) {
-                TreeSet<Integer> targets = adjsSource[1];
-                targets.add(targetid);
-            } else {
-                TreeSet<Integer> sources = new TreeSet<>();
-                TreeSet<Integer> targets = new TreeSet<>();
-                targets.add(targetid);
-                TreeSet<Integer> tmp[] = new TreeSet[2];
-                tmp[0] = sources;
-                tmp[1] = targets;
-                adjs.put(sourceid, tmp);
-            }
-            return 1;
+    private static boolean isCompressed(File file){
+        try (InputStream in = new FileInputStream(file)) {
+            return in.read()==(GZIPInputStream.GZIP_MAGIC&0xff) && in.read()==(GZIPInputStream.GZIP_MAGIC>>>8);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 }
@@ -0,0 +1,196 @@
+package graphhierarchies.graph;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A depth first search engine for repeated reachability queries on a graph in CSR form. Every thread gets its own
+ * stack and visited marks, which are allocated once and reused by all of its queries. The visited marks are stamped
+ * with the number of the query, so they never need to be cleared. Hence, a query allocates nothing and needs
+ * O(|V'|+|E'|) time, where V' and E' are the vertices and edges that it visits.
+ */
+public class Traversal {
+    private final CSRGraph g;
+    private final ThreadLocal<State> states;
+
+    private static class State {
+        final int[] stack;
+        final int[] marks;
+        int[] backStack; //allocated by the first bidirectional query
+        int[] backMarks;
+        int epoch = 0;
+        State(int n){
+            stack = new int[n];
+            marks = new int[n];
+        }
+        int nextEpoch(){
+            if(epoch==Integer.MAX_VALUE){
+                Arrays.fill(marks,0);
+                if(backMarks!=null){
+                    Arrays.fill(backMarks,0);
+                }
+                epoch = 0;
+            }
+            return ++epoch;
+        }
+    }
+
+    public Traversal(CSRGraph g){
+        this.g = g;
+        int n = g.verticesSize();
+        states = ThreadLocal.withInitial(() -> new State(n));
+    }
+
+    public CSRGraph getGraph() {
+        return g;
+    }
+
+    /**
+     * Returns true if there is a path from the vertex with index source to the vertex with index target.
+     */
+    public boolean isReachable(int source, int target){
+        if(source==target){return true;}
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        State state = states.get();
+        int[] stack = state.stack;
+        int[] marks = state.marks;
+        int epoch = state.nextEpoch();
+
+        int top = 0;
+        stack[top++] = source;
+        marks[source] = epoch;
+        while(top>0){
+            int v = stack[--top];
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                int t = targets[j];
+                if(t==target){return true;}
+                if(marks[t]!=epoch){
+                    marks[t] = epoch;
+                    stack[top++] = t;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if there is a path from the vertex with index source to the vertex with index target. The index of
+     * every vertex must be its topological rank. The search alternates a forward step over the targets of the
+     * source side and a backward step over the sources of the target side, always expanding the smaller frontier,
+     * until the two sides meet. A vertex whose rank is outside the window [source, target] cannot be on a path
+     * between them, hence, it is never visited.
+     */
+    public boolean isReachableBidirectional(int source, int target){
+        if(source==target){return true;}
+        if(source>target){return false;}
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        int[] sourceOffsets = g.getSourceOffsets();
+        int[] sources = g.getSources();
+        State state = states.get();
+        if(state.backStack==null){
+            state.backStack = new int[state.stack.length];
+            state.backMarks = new int[state.marks.length];
+        }
+        int[] stack = state.stack;
+        int[] marks = state.marks;
+        int[] backStack = state.backStack;
+        int[] backMarks = state.backMarks;
+        int epoch = state.nextEpoch();
+
+        int top = 0, backTop = 0;
+        stack[top++] = source;
+        marks[source] = epoch;
+        backStack[backTop++] = target;
+        backMarks[target] = epoch;
+        while(top>0 && backTop>0){
+            if(top<=backTop){
+                int v = stack[--top];
+                for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                    int w = targets[j];
+                    if(backMarks[w]==epoch){return true;}
+                    if(w<target && marks[w]!=epoch){
+                        marks[w] = epoch;
+                        stack[top++] = w;
+                    }
+                }
+            }else{
+                int v = backStack[--backTop];
+                for(int j=sourceOffsets[v];j<sourceOffsets[v+1];++j){
+                    int w = sources[j];
+                    if(marks[w]==epoch){return true;}
+                    if(w>source && backMarks[w]!=epoch){
+                        backMarks[w] = epoch;
+                        backStack[backTop++] = w;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the indices of all successors(not only the immediate) of the vertex with index source to the array
+     * successors and returns their number. The vertex itself is a successor only if it lies on a cycle.
+     * @param source the index of the starting vertex
+     * @param successors an array of at least |V| entries
+     * @return the number of successors
+     */
+    public int getSuccessors(int source, int[] successors){
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        State state = states.get();
+        int[] stack = state.stack;
+        int[] marks = state.marks;
+        int epoch = state.nextEpoch();
+
+        int size = 0, top = 0;
+        int v = source;
+        do{
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                int t = targets[j];
+                if(marks[t]!=epoch){
+                    marks[t] = epoch;
+                    stack[top++] = t;
+                    successors[size++] = t;
+                }
+            }
+            if(top==0){
+                break;
+            }
+            v = stack[--top];
+        }while(true);
+        return size;
+    }
+
+    /**
+     * Performs the action for every successor(not only the immediate) of the vertex with index source.
+     * The action must not run other queries of this traversal in the same thread.
+     */
+    public void forEachSuccessor(int source, IntConsumer action){
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        State state = states.get();
+        int[] stack = state.stack;
+        int[] marks = state.marks;
+        int epoch = state.nextEpoch();
+
+        int top = 0;
+        int v = source;
+        do{
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                int t = targets[j];
+                if(marks[t]!=epoch){
+                    marks[t] = epoch;
+                    stack[top++] = t;
+                    action.accept(t);
+                }
+            }
+            if(top==0){
+                break;
+            }
+            v = stack[--top];
+        }while(true);
+    }
+}
@@ -0,0 +1,64 @@
+package graphhierarchies.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The class provides static methods that write graphs in the binary graph format, which Reader.ReadBinaryGraph opens
+ * without parsing.
+ */
+public class Writer {
+    private Writer() {}
+
+    /**
+     * The method writes the graph to the output file in the binary graph format. If the vertices are indexed by
+     * topological rank and the adjacency lists are sorted (GraphUtil.setTopologicalRank and GraphUtil.sortAdjLists),
+     * the file is marked as topologically sorted and the graph can be used right after loading.
+     *
+     * @param g the graph to write
+     * @param binfile is the output file
+     */
+    public static void WriteBinaryGraph(CSRGraph g, File binfile){
+        int n = g.verticesSize();
+        int flags = BinaryFormat.isTopologicallySorted(g) ? BinaryFormat.TOPOLOGICAL : 0;
+        ByteBuffer buf = ByteBuffer.allocateDirect(1<<16).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(binfile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int[] header = {BinaryFormat.MAGIC, BinaryFormat.VERSION, flags, n, g.edgesSize(), 0};
+            BinaryFormat.writeInts(channel,buf,header);
+            long[] IDs = new long[n];
+            for(int v=0;v<n;++v){
+                IDs[v] = g.getID(v);
+            }
+            BinaryFormat.writeLongs(channel,buf,IDs);
+            BinaryFormat.writeInts(channel,buf,g.getTargetOffsets());
+            BinaryFormat.writeInts(channel,buf,g.getTargets());
+            BinaryFormat.writeInts(channel,buf,g.getSourceOffsets());
+            BinaryFormat.writeInts(channel,buf,g.getSources());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The method converts an edge list file (see Reader.ReadEdgeList) to the binary graph format. If the graph is
+     * acyclic, the vertices are written in topological order with sorted adjacency lists.
+     *
+     * @param textfile is the input edge list file
+     * @param binfile is the output file
+     * @return true if the graph is acyclic and was written in topological order, otherwise, false
+     */
+    public static boolean ConvertEdgeList(File textfile, File binfile){
+        CSRGraph g = Reader.ReadCSRGraph(textfile);
+        boolean isDAG = GraphUtil.setTopologicalRank(g)!=null;
+        if(isDAG){
+            GraphUtil.sortAdjLists(g);
+        }
+        WriteBinaryGraph(g,binfile);
+        return isDAG;
+    }
+}
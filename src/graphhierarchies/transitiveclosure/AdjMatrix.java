@@ -1,21 +1,20 @@
 package graphhierarchies.transitiveclosure;
 
+import graphhierarchies.graph.CSRGraph;
 import graphhierarchies.graph.DiGraph;
+import graphhierarchies.graph.Traversal;
 import graphhierarchies.graph.Vertex;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 
-import static graphhierarchies.graph.GraphUtil.DFS_lookup;
-
 /**
  * The class computes the transitive closure and keeps the results in an 2D adjacency matrix to answer reachability queries in constant time.
  * The construction of the 2D matrix needs O(|V|*|E|) time, where V is the set of vertices and E the set of edges.
  */
 public class AdjMatrix implements TransitiveClosure{
     private final boolean[][] adjmatrix;
-    HashMap<Vertex,Integer> IDs;
-    HashMap<Integer,Vertex> IDtoVertex;
+    private final CSRGraph graph;
+    private final Vertex[] vertices;
 
     /**
      * Computes the transitive closure of graph g and keeps the results in an 2D adjacency matrix in O(|V|*|E|) time,
@@ -23,29 +22,27 @@ public class AdjMatrix implements TransitiveClosure{
      * @param g is the input graph
      */
     public AdjMatrix(DiGraph g){
-        adjmatrix = new boolean[g.verticesSize()][g.verticesSize()];
-        IDs = new HashMap<>();
-        IDtoVertex = new HashMap<>();
-        int id = 0;
-        for(Vertex v:g.getVertices()){
-            IDs.put(v,id);
-            IDtoVertex.put(id,v);
-            ++id;
-        }
+        int n = g.verticesSize();
+        adjmatrix = new boolean[n][n];
+        vertices = g.getVertices().toArray(new Vertex[0]);
+        graph = new CSRGraph(g);
 
-        for(Vertex v:g.getVertices()){
-            LinkedList<Vertex> successors = DFS_lookup(v);
-            for(Vertex s:successors) {
-                adjmatrix[IDs.get(v)][IDs.get(s)] = true;
+        Traversal traversal = new Traversal(graph);
+        int[] successors = new int[n];
+        for(int v=0;v<n;++v){
+            int size = traversal.getSuccessors(v,successors);
+            boolean[] row = adjmatrix[v];
+            for(int i=0;i<size;++i) {
+                row[successors[i]] = true;
             }
         }
     }
 
     @Override
     public boolean isReachable(Vertex source, Vertex target) {
-        Integer sid = IDs.get(source);
-        Integer tid = IDs.get(target);
-        if(sid==null||tid==null){
+        int sid = graph.getIndex(source.getID());
+        int tid = graph.getIndex(target.getID());
+        if(sid==-1||tid==-1){
             return false;
         }
         if(adjmatrix[sid][tid]){
@@ -56,15 +53,15 @@ public class AdjMatrix implements TransitiveClosure{
 
     @Override
     public LinkedList<Vertex> getSuccessors(Vertex v) {
-        Integer id = IDs.get(v);
-        if(id==null){
+        int id = graph.getIndex(v.getID());
+        if(id==-1){
             return null;
         }
 
         LinkedList<Vertex> successors = new LinkedList<>();
-        for(int i=0;i<IDs.size();++i){
+        for(int i=0;i<vertices.length;++i){
             if(adjmatrix[id][i]){
-                successors.add( IDtoVertex.get(i) );
+                successors.add( vertices[i] );
             }
         }
 
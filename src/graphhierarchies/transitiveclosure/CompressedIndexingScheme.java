@@ -0,0 +1,364 @@
+package graphhierarchies.transitiveclosure;
+
+import graphhierarchies.chaindecomposition.ChainDecompositionResult;
+import graphhierarchies.graph.CSRGraph;
+import graphhierarchies.graph.Vertex;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * The class holds the indices of an IndexingScheme in a compressed form. The index of a vertex in a chain is a
+ * position of the chain, so it is stored in 1, 2 or 4 bytes, depending on the length of the chain; the largest value
+ * of the width stands for Integer.MAX_VALUE (no vertex of the chain is reached). Every row, i.e. the indices of a
+ * vertex, is stored either:
+ * <ul>
+ * <li>dense, all k indices one after the other in chain order, or</li>
+ * <li>sparse, a bitmap of the chains that the vertex reaches, the byte offset of the first value of every 64 bits of
+ * the bitmap and the values of the reached chains only.</li>
+ * </ul>
+ * whichever is smaller. In the bitmap the chains are grouped by width and every group starts at a multiple of 64,
+ * so all chains of a 64-bit word have the same width and the offset of a value is the offset of its word plus
+ * the width times the number of set bits before it. Hence, a query reads one entry of a dense row, or one word,
+ * one offset and one entry of a sparse row, in constant time.
+ * <br>The rows are built directly in compressed form, in reverse topological order like an IndexingScheme: the
+ * rows of the immediate successors of a vertex are merged into a single scratch row of k ints, which is then
+ * compressed. Hence, building the scheme of a CSRGraph needs the compressed rows and O(k) extra memory, the n*k
+ * indices of an IndexingScheme are never held in memory.
+ */
+public class CompressedIndexingScheme implements TransitiveClosure{
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final int n;
+    private final int kc;
+    private final ChainDecompositionResult decomposition;
+    private final Vertex[] topolSorting;
+    private final int[] chainOf;
+    private final int[] position;
+    private final byte[] width;     //the bytes of the indices of every chain
+    private final int[] offset;     //the offset of every chain in a dense row
+    private final int[] column;     //the bit of every chain in the bitmap of a sparse row
+    private final int[] chainAt;    //the chain of every bit of the bitmap of a sparse row, -1 for the padding
+    private final byte[] wordWidth; //the bytes of the indices of the chains of every 64-bit word of the bitmap
+    private final int words;        //the 64-bit words of the bitmap of a sparse row
+    private final int denseSize;
+    private final int[] rowOffsets;
+    private final long[] isSparse;
+    private ByteBuffer data;
+    private int size = 0;
+    private int sparseRows = 0;
+
+    /**
+     * Compresses the indices of an indexing scheme. It throws an ArithmeticException if the compressed indices do
+     * not fit in an array.
+     * @param scheme an indexing scheme
+     */
+    public CompressedIndexingScheme(IndexingScheme scheme){
+        this(scheme.getDecomposition(),scheme.getTopolSorting());
+        int[] row = new int[kc];
+        for(int v=0;v<n;++v){
+            for(int c=0;c<kc;++c){
+                row[c] = scheme.getIndex(v,c);
+            }
+            append(v,row);
+        }
+        trim();
+    }
+
+    /**
+     * Builds the compressed indexing scheme of a graph in CSR form, without building an IndexingScheme first. It
+     * throws an ArithmeticException if the compressed indices do not fit in an array.
+     * @param decomposition a chain decomposition of the graph
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     */
+    public CompressedIndexingScheme(ChainDecompositionResult decomposition, CSRGraph g){
+        this(decomposition,(Vertex[])null);
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        int[] row = new int[kc];
+        for(int v=n-1;v>=0;--v){
+            Arrays.fill(row,INF);
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                int t = targets[j];
+                if(row[chainOf[t]]>position[t]){ //t is not reachable yet
+                    merge(row,t);
+                    row[chainOf[t]] = Math.min(row[chainOf[t]],position[t]);
+                }
+            }
+            append(v,row);
+        }
+        trim();
+    }
+
+    /**
+     * Sets the widths of the chains and the layout of the rows, without any row.
+     */
+    private CompressedIndexingScheme(ChainDecompositionResult decomposition, Vertex[] topolSorting){
+        this.decomposition = decomposition;
+        this.topolSorting = topolSorting;
+        this.n = decomposition.verticesSize();
+        this.kc = decomposition.chainsSize();
+        this.chainOf = decomposition.getChainOf();
+        this.position = decomposition.getPositionInChain();
+
+        //the width of every chain and the chains grouped by width in the bitmap
+        width = new byte[kc];
+        offset = new int[kc];
+        column = new int[kc];
+        int denseSize = 0;
+        for(int c=0;c<kc;++c){
+            int size = decomposition.chainSize(c);
+            width[c] = (byte)(size<=0xFF ? 1 : size<=0xFFFF ? 2 : 4);
+            offset[c] = denseSize;
+            denseSize += width[c];
+        }
+        this.denseSize = denseSize;
+        int bits = 0;
+        byte[] wordWidth = new byte[(kc+3*63)>>>6];
+        for(int w=1;w<=4;w<<=1){
+            int first = bits;
+            for(int c=0;c<kc;++c){
+                if(width[c]==w){
+                    column[c] = bits++;
+                }
+            }
+            bits = (bits+63)&~63;
+            for(int i=first>>>6;i<bits>>>6;++i){
+                wordWidth[i] = (byte)w;
+            }
+        }
+        words = bits>>>6;
+        this.wordWidth = Arrays.copyOf(wordWidth,words);
+        chainAt = new int[bits];
+        Arrays.fill(chainAt,-1);
+        for(int c=0;c<kc;++c){
+            chainAt[column[c]] = c;
+        }
+
+        rowOffsets = new int[n];
+        isSparse = new long[(n+63)>>>6];
+        data = ByteBuffer.allocate(Math.max(16,denseSize)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Compresses the indices of vertex v and appends them to the rows, as a dense or a sparse row, whichever is
+     * smaller.
+     */
+    private void append(int v, int[] row){
+        int headerSize = 12*words;
+        int sparseSize = headerSize;
+        for(int c=0;c<kc;++c){
+            if(row[c]!=INF){
+                sparseSize += width[c];
+            }
+        }
+        boolean sparse = sparseSize<denseSize;
+        int rowSize = sparse ? sparseSize : denseSize;
+        int end = Math.addExact(size,rowSize);
+        if(end>data.capacity()){
+            int capacity = (int)Math.min(Integer.MAX_VALUE-8,2L*data.capacity());
+            data = ByteBuffer.wrap(Arrays.copyOf(data.array(),Math.max(capacity,end))).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int start = size;
+        rowOffsets[v] = start;
+        size = end;
+        if(!sparse){
+            for(int c=0;c<kc;++c){
+                write(start+offset[c],width[c],row[c]);
+            }
+            return;
+        }
+        isSparse[v>>>6] |= 1L<<v;
+        ++sparseRows;
+
+        //the bitmap, the offset of every word and the values of the reached chains in bitmap order
+        int values = start+headerSize;
+        int valuesSize = 0;
+        for(int w=0;w<words;++w){
+            long word = 0;
+            data.putInt(start+8*words+4*w,valuesSize);
+            for(int b=w<<6;b<(w+1)<<6;++b){
+                int c = chainAt[b];
+                if(c!=-1 && row[c]!=INF){
+                    word |= 1L<<b;
+                    write(values+valuesSize,wordWidth[w],row[c]);
+                    valuesSize += wordWidth[w];
+                }
+            }
+            data.putLong(start+8*w,word);
+        }
+    }
+
+    /**
+     * Replaces every index of the row that is larger than the index of vertex t in the same chain.
+     */
+    private void merge(int[] row, int t){
+        int start = rowOffsets[t];
+        if(!isSparse(t)){
+            for(int c=0;c<kc;++c){
+                int index = read(start+offset[c],width[c]);
+                if(row[c]>index){
+                    row[c] = index;
+                }
+            }
+            return;
+        }
+        int values = start+12*words;
+        for(int w=0;w<words;++w){
+            long word = data.getLong(start+8*w);
+            int i = values+data.getInt(start+8*words+4*w);
+            while(word!=0){
+                int c = chainAt[(w<<6)+Long.numberOfTrailingZeros(word)];
+                int index = read(i,wordWidth[w]);
+                if(row[c]>index){
+                    row[c] = index;
+                }
+                i += wordWidth[w];
+                word &= word-1;
+            }
+        }
+    }
+
+    /**
+     * Drops the unused capacity of the rows.
+     */
+    private void trim(){
+        if(size<data.capacity()){
+            data = ByteBuffer.wrap(Arrays.copyOf(data.array(),size)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private boolean isSparse(int v){
+        return (isSparse[v>>>6]>>>v&1)!=0;
+    }
+
+    private void write(int i, int width, int index){
+        if(width==1){
+            data.put(i,(byte)(index==INF ? 0xFF : index));
+        }else if(width==2){
+            data.putShort(i,(short)(index==INF ? 0xFFFF : index));
+        }else{
+            data.putInt(i,index);
+        }
+    }
+
+    private int read(int i, int width){
+        if(width==1){
+            int index = data.get(i)&0xFF;
+            return index==0xFF ? INF : index;
+        }else if(width==2){
+            int index = data.getShort(i)&0xFFFF;
+            return index==0xFFFF ? INF : index;
+        }
+        return data.getInt(i);
+    }
+
+    /**
+     * Returns the position of the first vertex of a chain that vertex v reaches, other than v itself, or
+     * Integer.MAX_VALUE if v reaches no vertex of the chain (see IndexingScheme.getIndex).
+     *
+     * @param v the topological rank of the vertex
+     * @param chain the number of the chain
+     */
+    public int getIndex(int v, int chain){
+        int row = rowOffsets[v];
+        if(!isSparse(v)){
+            return read(row+offset[chain],width[chain]);
+        }
+        int b = column[chain];
+        long word = data.getLong(row+8*(b>>>6));
+        if((word>>>b&1)==0){
+            return INF;
+        }
+        int valueOffset = data.getInt(row+8*words+4*(b>>>6))+width[chain]*Long.bitCount(word&((1L<<b)-1));
+        return read(row+12*words+valueOffset,width[chain]);
+    }
+
+    @Override
+    public boolean isReachable(Vertex source, Vertex target) {
+        return isReachable(source.getTopolRank(),target.getTopolRank());
+    }
+
+    /**
+     * Returns true if there is a path from the source vertex to the target vertex. Both vertices are given by
+     * their topological rank.
+     *
+     * @param source the topological rank of the starting vertex
+     * @param target the topological rank of the destination vertex
+     * @return true if there is a path between vertex source and vertex target, otherwise, false
+     */
+    public boolean isReachable(int source, int target) {
+        if(source==target){return true;}
+        return getIndex(source,chainOf[target])<=position[target];
+    }
+
+    /**
+     * Returns all successors(not only the immediate) of a vertex. It is supported only if the indexing scheme was
+     * built from a topological sorting, otherwise, it throws an IllegalStateException; use getSuccessors(int)
+     * instead.
+     */
+    @Override
+    public LinkedList<Vertex> getSuccessors(Vertex v) {
+        if(topolSorting==null){
+            throw new IllegalStateException("The scheme has no Vertex objects, it was built from a CSRGraph; use getSuccessors(int)");
+        }
+        LinkedList<Vertex> successors = new LinkedList<>();
+        for(int s:getSuccessors(v.getTopolRank())){
+            successors.add(topolSorting[s]);
+        }
+        return successors;
+    }
+
+    /**
+     * Returns the topological ranks of all successors(not only the immediate) of a vertex.
+     *
+     * @param v the topological rank of the starting vertex
+     * @return the topological ranks of all successors of vertex v
+     */
+    public LinkedList<Integer> getSuccessors(int v) {
+        LinkedList<Integer> successors = new LinkedList<>();
+        for(int chain=0;chain<kc;++chain){
+            for(int i=getIndex(v,chain);i<decomposition.chainSize(chain);++i){
+                successors.add(decomposition.getVertex(chain,i));
+            }
+        }
+        return successors;
+    }
+
+    public int sparseRowsSize(){
+        return sparseRows;
+    }
+
+    /**
+     * Returns the number of bytes of the compressed indices, of the row offsets and of the chain and the position of
+     * every vertex.
+     */
+    public long bytesSize(){
+        return data.capacity()+4L*n+8L*isSparse.length+8L*n+9L*kc+257L*words;
+    }
+
+    /**
+     * Prints the bytes per vertex of an indexing scheme before and after the compression, the number of sparse rows
+     * and the number of chains whose indices take 1, 2 and 4 bytes.
+     *
+     * @param scheme an indexing scheme
+     */
+    public static void printCompressionReport(IndexingScheme scheme){
+        long start = System.nanoTime();
+        CompressedIndexingScheme compressed = new CompressedIndexingScheme(scheme);
+        long time = System.nanoTime()-start;
+        int n = compressed.n;
+        int[] chains = new int[5];
+        for(byte w:compressed.width){
+            chains[w]++;
+        }
+        double before = n==0 ? 0 : (double)scheme.bytesSize()/n;
+        double after = n==0 ? 0 : (double)compressed.bytesSize()/n;
+        System.out.println("chains: "+compressed.kc+" (1/2/4 bytes: "+chains[1]+"/"+chains[2]+"/"+chains[4]+")"
+                +" sparse rows: "+compressed.sparseRows+"/"+n
+                +String.format(" bytes/vertex: %.1f -> %.1f (%.1f%%)",before,after,before==0 ? 0.0 : 100.0*after/before)
+                +" ("+time/1000000+" ms)");
+    }
+}
@@ -0,0 +1,111 @@
+package graphhierarchies.transitiveclosure;
+
+import graphhierarchies.chaindecomposition.ChainDecomposition;
+import graphhierarchies.graph.CSRGraph;
+import graphhierarchies.graph.Condensation;
+import graphhierarchies.graph.DiGraph;
+import graphhierarchies.graph.Vertex;
+
+import java.util.LinkedList;
+
+/**
+ * The class answers reachability queries on arbitrary directed graphs, including graphs with cycles. It builds an
+ * IndexingScheme on the condensation DAG and maps every query through the strongly connected components: a vertex
+ * reaches another vertex if they belong to the same component or if the component of the first reaches the
+ * component of the second. Queries need constant time.
+ */
+public class CondensedIndexingScheme implements TransitiveClosure{
+    private final Condensation condensation;
+    private final IndexingScheme scheme;
+    private Vertex[] vertices; //the vertices of the DiGraph by index, null for a CSRGraph
+
+    /**
+     * Builds the condensation of the graph and an indexing scheme on it.
+     * @param g a directed graph
+     */
+    public CondensedIndexingScheme(DiGraph g){
+        this(new Condensation(g));
+        vertices = g.getVertices().toArray(new Vertex[0]);
+    }
+
+    /**
+     * Builds the condensation of the graph and an indexing scheme on it. Vertices are given by their index in g.
+     * @param g a directed graph
+     */
+    public CondensedIndexingScheme(CSRGraph g){
+        this(new Condensation(g));
+    }
+
+    /**
+     * Builds an indexing scheme on the condensation DAG, using FastChainDecomposition.
+     * @param condensation the condensation of a directed graph
+     */
+    public CondensedIndexingScheme(Condensation condensation){
+        this.condensation = condensation;
+        CSRGraph dag = condensation.getDAG();
+        this.scheme = new IndexingScheme(ChainDecomposition.FastChainDecomposition(dag),dag);
+    }
+
+    @Override
+    public boolean isReachable(Vertex source, Vertex target) {
+        return isReachable(condensation.getGraph().getIndex(source.getID()),condensation.getGraph().getIndex(target.getID()));
+    }
+
+    /**
+     * Returns true if there is a path from the source vertex to the target vertex. Both vertices are given by their
+     * index in the graph.
+     *
+     * @param source the index of the starting vertex
+     * @param target the index of the destination vertex
+     * @return true if there is a path between vertex source and vertex target, otherwise, false
+     */
+    public boolean isReachable(int source, int target) {
+        return scheme.isReachable(condensation.getComponent(source),condensation.getComponent(target));
+    }
+
+    /**
+     * Returns all successors(not only the immediate) of a vertex. A vertex on a cycle is a successor of itself.
+     * It is supported only if the scheme was built from a DiGraph, otherwise, it throws an IllegalStateException;
+     * use getSuccessors(int) instead.
+     */
+    @Override
+    public LinkedList<Vertex> getSuccessors(Vertex v) {
+        if(vertices==null){
+            throw new IllegalStateException("The scheme has no Vertex objects, it was not built from a DiGraph; use getSuccessors(int)");
+        }
+        LinkedList<Vertex> successors = new LinkedList<>();
+        for(int s:getSuccessors(condensation.getGraph().getIndex(v.getID()))){
+            successors.add(vertices[s]);
+        }
+        return successors;
+    }
+
+    /**
+     * Returns the indices of all successors(not only the immediate) of a vertex. A vertex on a cycle is a successor
+     * of itself.
+     *
+     * @param v the index of the starting vertex
+     * @return the indices of all successors of vertex v
+     */
+    public LinkedList<Integer> getSuccessors(int v) {
+        LinkedList<Integer> successors = new LinkedList<>();
+        int[] members = condensation.getMembers();
+        int[] memberOffsets = condensation.getMemberOffsets();
+        int c = condensation.getComponent(v);
+        if(condensation.componentSize(c)>1){
+            for(int j=memberOffsets[c];j<memberOffsets[c+1];++j){
+                successors.add(members[j]);
+            }
+        }
+        for(int s:scheme.getSuccessors(c)){
+            for(int j=memberOffsets[s];j<memberOffsets[s+1];++j){
+                successors.add(members[j]);
+            }
+        }
+        return successors;
+    }
+
+    public Condensation getCondensation() {
+        return condensation;
+    }
+}
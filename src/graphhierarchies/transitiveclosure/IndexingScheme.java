@@ -1,10 +1,11 @@
 package graphhierarchies.transitiveclosure;
 
 import graphhierarchies.chaindecomposition.Chain;
+import graphhierarchies.chaindecomposition.ChainDecompositionResult;
+import graphhierarchies.graph.CSRGraph;
 import graphhierarchies.graph.Edge;
 import graphhierarchies.graph.Vertex;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 
@@ -15,51 +16,140 @@ import java.util.LinkedList;
  * <br>- H. V. Jagadish. "A Compression Technique to Materialize Transitive Closure".
  * <br>The class implementation is explicated in the paper:
  * <br>- Giorgos Kritikakis, Ioannis G. Tollis. "Fast and Practical DAG Decomposition with Reachability Applications".
+ * <br>The indices are kept in a row-major table of |V|*k ints, one row per vertex in topological order, and the
+ * chain and the position of every vertex in two arrays, so a query reads a single entry of the row of the source.
  */
 public class IndexingScheme implements TransitiveClosure{
     private final int INF = Integer.MAX_VALUE;
-    private Indices[] vertexIndices;
-    private ArrayList<Indices> []scheme;
+    private static final int MAX_BLOCK = 1<<30; //the entries of a block, when the rows do not fit in one array
+    private int[][] blocks; //the indices of all vertices, one row of kc entries per vertex, row-major
+    private int blockShift; //vertex v is row v&blockMask of block v>>>blockShift
+    private int blockMask;
+    private int[] chainOf;
+    private int[] position; //the position of every vertex in its chain
+    private Vertex[] topolSorting;
+    private CSRGraph graph;
+    private ChainDecompositionResult decomposition;
+    private OffHeapIntArray table; //the indices of all vertices in off-heap mode, one row of kc entries per vertex
+    private int kc;
 
     @Override
     public boolean isReachable(Vertex source, Vertex target) {
+        return isReachable(source.getTopolRank(),target.getTopolRank());
+    }
+
+    /**
+     * Returns true if there is a path from the source vertex to the target vertex. Both vertices are given by
+     * their topological rank.
+     *
+     * @param source the topological rank of the starting vertex
+     * @param target the topological rank of the destination vertex
+     * @return true if there is a path between vertex source and vertex target, otherwise, false
+     */
+    public boolean isReachable(int source, int target) {
         if(source==target){return true;}
-        Indices t_indices = vertexIndices[target.getTopolRank()];
-        int t_chain = t_indices.chain;
-
-        Indices s_indices = vertexIndices[source.getTopolRank()];
-        int s_index = s_indices.indices[t_chain];
-        int t_index = t_indices.indices[t_chain];
-        if(s_index<t_index){
-            return  true;
-        }
-        return false;
+        return get(source,chainOf[target])<=position[target];
     }
 
     @Override
     public LinkedList<Vertex> getSuccessors(Vertex v) {
         LinkedList<Vertex> successors = new LinkedList<>();
-        Indices v_indices = vertexIndices[v.getTopolRank()];
-        int chain = 0;
-        for(int index:v_indices.indices){
-            for(int i=index;i<scheme[chain].size();++i){
-                Vertex toAdd = scheme[chain].get(i).v;
-                successors.add(toAdd);
+        for(int s:getSuccessors(v.getTopolRank())){
+            successors.add(topolSorting[s]);
+        }
+        return successors;
+    }
+
+    /**
+     * Returns the topological ranks of all successors(not only the immediate) of a vertex.
+     *
+     * @param v the topological rank of the starting vertex
+     * @return the topological ranks of all successors of vertex v
+     */
+    public LinkedList<Integer> getSuccessors(int v) {
+        LinkedList<Integer> successors = new LinkedList<>();
+        for(int chain=0;chain<kc;++chain){
+            for(int i=get(v,chain);i<decomposition.chainSize(chain);++i){
+                successors.add(decomposition.getVertex(chain,i));
             }
-            ++chain;
         }
         return successors;
     }
 
-    class Indices{
-        int[] indices;
-        int chain;
-        Vertex v;
-        Indices(int kc,Vertex v,int chain_no){
-            indices = new int[kc];
-            Arrays.fill(indices, INF);
-            this.v = v;
-            this.chain = chain_no;
+    /**
+     * Returns the position of the first vertex of a chain that vertex v reaches, other than v itself, or
+     * Integer.MAX_VALUE if v reaches no vertex of the chain. Every vertex of the chain from that position on is a
+     * successor of v.
+     *
+     * @param v the topological rank of the vertex
+     * @param chain the number of the chain
+     */
+    public int getIndex(int v, int chain){
+        return get(v,chain);
+    }
+
+    public ChainDecompositionResult getDecomposition(){
+        return decomposition;
+    }
+
+    /**
+     * Returns the topological sorting of a scheme that is built from a list of chains, otherwise, null.
+     */
+    Vertex[] getTopolSorting(){
+        return topolSorting;
+    }
+
+    /**
+     * Returns the number of bytes of the indices and of the chain and the position of every vertex.
+     */
+    public long bytesSize(){
+        return 4L*decomposition.verticesSize()*kc+8L*decomposition.verticesSize();
+    }
+
+    private int get(int v,int chain){
+        if(table!=null){
+            return table.get((long)v*kc+chain);
+        }
+        return blocks[v>>>blockShift][(v&blockMask)*kc+chain];
+    }
+    private void set(int v,int chain,int index){
+        if(table!=null){
+            table.set((long)v*kc+chain,index);
+        }else{
+            blocks[v>>>blockShift][(v&blockMask)*kc+chain] = index;
+        }
+    }
+
+    /**
+     * Allocates the indices of n vertices, all set to INF. The rows are kept in a single array if n*kc entries fit,
+     * otherwise in blocks of a power of two rows each.
+     */
+    private void allocate(int n){
+        chainOf = decomposition.getChainOf();
+        position = decomposition.getPositionInChain();
+        long size = (long)n*kc;
+        if(table!=null){
+            if(table.length()!=size){
+                table = new OffHeapIntArray(size);
+            }
+            table.fill(0,size,INF);
+            blocks = null;
+            return;
+        }
+        if(size<=Integer.MAX_VALUE-8){
+            blockShift = 31;
+            blockMask = Integer.MAX_VALUE;
+            blocks = new int[][]{new int[(int)size]};
+        }else{
+            blockShift = 31-Integer.numberOfLeadingZeros(Math.max(1,MAX_BLOCK/kc));
+            blockMask = (1<<blockShift)-1;
+            blocks = new int[(int)((n+(long)blockMask)>>>blockShift)][];
+            for(int b=0;b<blocks.length;++b){
+                blocks[b] = new int[Math.min(1<<blockShift,n-(b<<blockShift))*kc];
+            }
+        }
+        for(int[] block:blocks){
+            Arrays.fill(block,INF);
         }
     }
 
@@ -77,33 +167,46 @@ public class IndexingScheme implements TransitiveClosure{
         create_IndexingScheme(decomposition,topolSorting,Etr);
     }
 
-    public void create_IndexingScheme(LinkedList<Chain> decomposition, Vertex[] topolSorting,LinkedList<Edge> Etr){
-        //Initialization
-        int kc = decomposition.size();
-        scheme = new ArrayList[kc];
-        vertexIndices = new Indices[topolSorting.length];
-
-
-        int chain_no = 0;
-        for(Chain C:decomposition){
-            scheme[chain_no] = new ArrayList<>(C.getVertices().size());
-
-            for(Vertex v:C.getVertices()) {
-                Indices indices = new Indices(kc,v,chain_no);
-                scheme[chain_no].add(indices);
-                vertexIndices[v.getTopolRank()] = indices;
-            }
+    /**
+     * Builds an indexing scheme for a graph in CSR form.
+     * @param decomposition a chain decomposition of the graph
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     */
+    public IndexingScheme(ChainDecompositionResult decomposition, CSRGraph g){
+        create_IndexingScheme(decomposition,g);
+    }
 
-            scheme[chain_no].trimToSize();
-            ++chain_no;
+    /**
+     * Builds an indexing scheme for a graph in CSR form. If offHeap is true, the n*k indices are kept in a single
+     * table outside the Java heap, hence, the garbage collector never scans or copies them and they do not count
+     * against -Xmx. Only the indices are off-heap; the graph and the chain decomposition, O(|V|+|E|) ints, stay on
+     * the heap. The table is limited by -XX:MaxDirectMemorySize, which defaults to about the maximum heap size, so
+     * a table larger than the heap needs a larger limit (see OffHeapIntArray).
+     * @param decomposition a chain decomposition of the graph
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank
+     * @param offHeap true to store the indices off-heap
+     */
+    public IndexingScheme(ChainDecompositionResult decomposition, CSRGraph g, boolean offHeap){
+        if(offHeap){
+            table = new OffHeapIntArray((long)g.verticesSize()*decomposition.chainsSize());
         }
+        create_IndexingScheme(decomposition,g);
+    }
+
+    public void create_IndexingScheme(LinkedList<Chain> decomposition, Vertex[] topolSorting,LinkedList<Edge> Etr){
+        //Initialization
+        kc = decomposition.size();
+        this.decomposition = new ChainDecompositionResult(decomposition);
+        this.topolSorting = topolSorting;
+        this.graph = null;
+        allocate(topolSorting.length);
 
         //creating indices
         for(int j = topolSorting.length-1;j>=0;--j){
             Vertex v = topolSorting[j];
             for(Vertex t:v.getAdjTargets()){
                 if( !isReachable(v,t) ){
-                    update_indices(v,t);
+                    update_indices(v.getTopolRank(),t.getTopolRank());
                 }else{ //transitive edge
                     if(Etr!=null){
                         Etr.add( new Edge(v,t) );
@@ -112,40 +215,65 @@ public class IndexingScheme implements TransitiveClosure{
             }
         }
     }
-    private void update_indices(Vertex source,Vertex target){
-        int[] s_indices_array = vertexIndices[source.getTopolRank()].indices;
-        Indices t_indices = vertexIndices[target.getTopolRank()];
-        int[] t_indices_array = t_indices.indices;
-        for(int i=0;i<s_indices_array.length;++i){
-            if(s_indices_array[i]>t_indices_array[i]){
-                s_indices_array[i] = t_indices_array[i];
-            }
-        }
 
-        int t_chain = vertexIndices[target.getTopolRank()].chain;
-        int t_index = getPosition(t_indices);
-        if(s_indices_array[t_chain]>t_index){
-            s_indices_array[t_chain]=t_index;
+    public void create_IndexingScheme(ChainDecompositionResult decomposition, CSRGraph g){
+        //Initialization
+        int n = g.verticesSize();
+        kc = decomposition.chainsSize();
+        this.decomposition = decomposition;
+        this.graph = g;
+        this.topolSorting = null;
+        allocate(n);
+
+        //creating indices
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        for(int v = n-1;v>=0;--v){
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                if( !isReachable(v,targets[j]) ){
+                    update_indices(v,targets[j]);
+                }
+            }
         }
     }
-    private int getPosition(Indices indices){
-        int c = indices.chain;
-        int index = indices.indices[c];
-
-        if(index==INF){
-            return scheme[c].size()-1;
+    private void update_indices(int source,int target){
+        if(table==null){
+            int[] s_block = blocks[source>>>blockShift];
+            int[] t_block = blocks[target>>>blockShift];
+            int s_row = (source&blockMask)*kc;
+            int t_row = (target&blockMask)*kc;
+            for(int i=0;i<kc;++i){
+                if(s_block[s_row+i]>t_block[t_row+i]){
+                    s_block[s_row+i] = t_block[t_row+i];
+                }
+            }
         }else{
-            return index-1;
+            long s_row = (long)source*kc;
+            long t_row = (long)target*kc;
+            for(int i=0;i<kc;++i){
+                int t_index = table.get(t_row+i);
+                if(table.get(s_row+i)>t_index){
+                    table.set(s_row+i,t_index);
+                }
+            }
+        }
+
+        int t_chain = chainOf[target];
+        int t_index = position[target];
+        if(get(source,t_chain)>t_index){
+            set(source,t_chain,t_index);
         }
     }
     public void printScheme(){
         System.out.println("\nSCHEME:");
-        int chain = 0;
-        for( ArrayList<Indices> C:scheme){
+        for(int chain=0;chain<kc;++chain){
             System.out.println("Chain "+chain);
-            for(Indices i:C){
-                System.out.print(" [V"+i.v.getID()+":");
-                for(int index:i.indices){
+            for(int position=0;position<decomposition.chainSize(chain);++position){
+                int v = decomposition.getVertex(chain,position);
+                long ID = topolSorting!=null ? topolSorting[v].getID() : graph.getID(v);
+                System.out.print(" [V"+ID+":");
+                for(int c=0;c<kc;++c){
+                    int index = get(v,c);
                     if(index==INF){
                         System.out.print(" -");
                     }else {
@@ -155,7 +283,6 @@ public class IndexingScheme implements TransitiveClosure{
                 System.out.print("] ");
             }
             System.out.println("");
-            ++chain;
         }
     }
 }
@@ -0,0 +1,81 @@
+package graphhierarchies.transitiveclosure;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * An int array that lives outside the Java heap. It is made of direct buffer segments of 2^28 entries, so the
+ * garbage collector neither scans nor copies its contents and they do not count against -Xmx. It holds up to
+ * Integer.MAX_VALUE segments, i.e. up to MAX_LENGTH (about 2^59) entries. The memory is released when the array
+ * becomes unreachable.
+ * <br>Direct buffers are limited by -XX:MaxDirectMemorySize, which defaults to about the maximum heap size, so an
+ * array larger than the heap needs a larger limit, e.g. -XX:MaxDirectMemorySize=64g; otherwise, the allocation fails
+ * with an OutOfMemoryError.
+ */
+class OffHeapIntArray {
+    private static final int SHIFT = 28; // 2^28 ints (1GB) per segment
+    private static final int MASK = (1<<SHIFT)-1;
+    private static final int FILL_CHUNK = 1<<12;
+    static final long MAX_LENGTH = (long)Integer.MAX_VALUE<<SHIFT;
+
+    private final IntBuffer[] segments;
+    private final long length;
+
+    /**
+     * Allocates an array of the given length. It throws an IllegalArgumentException if the length is negative or
+     * larger than MAX_LENGTH.
+     */
+    OffHeapIntArray(long length) {
+        if(length<0 || length>MAX_LENGTH){
+            throw new IllegalArgumentException("Invalid off-heap array length: "+length+" (at most "+MAX_LENGTH+")");
+        }
+        this.length = length;
+        int count = (int)((length+MASK)>>>SHIFT);
+        segments = new IntBuffer[count];
+        for(int i=0;i<count;++i){
+            long size = Math.min(1L<<SHIFT,length-((long)i<<SHIFT));
+            try {
+                segments[i] = ByteBuffer.allocateDirect((int)(4*size)).order(ByteOrder.nativeOrder()).asIntBuffer();
+            } catch (OutOfMemoryError e) {
+                OutOfMemoryError error = new OutOfMemoryError("Cannot allocate an off-heap array of "+4*length
+                        +" bytes, raise -XX:MaxDirectMemorySize: "+e.getMessage());
+                error.initCause(e);
+                throw error;
+            }
+        }
+    }
+
+    int get(long i){
+        return segments[(int)(i>>>SHIFT)].get((int)(i&MASK));
+    }
+
+    void set(long i, int value){
+        segments[(int)(i>>>SHIFT)].put((int)(i&MASK),value);
+    }
+
+    /**
+     * Sets the entries from index from (inclusive) to index to (exclusive) to value, with bulk transfers per segment.
+     */
+    void fill(long from, long to, int value){
+        if(from>=to){
+            return;
+        }
+        int[] chunk = new int[(int)Math.min(FILL_CHUNK,to-from)];
+        Arrays.fill(chunk,value);
+        for(long i=from;i<to;){
+            IntBuffer segment = segments[(int)(i>>>SHIFT)];
+            int start = (int)(i&MASK);
+            int end = (int)Math.min(segment.capacity(),start+(to-i));
+            for(int j=start;j<end;j+=chunk.length){
+                segment.put(j,chunk,0,Math.min(chunk.length,end-j));
+            }
+            i += end-start;
+        }
+    }
+
+    long length(){
+        return length;
+    }
+}
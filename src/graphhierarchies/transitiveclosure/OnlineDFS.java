@@ -1,5 +1,8 @@
 package graphhierarchies.transitiveclosure;
 
+import graphhierarchies.graph.CSRGraph;
+import graphhierarchies.graph.DiGraph;
+import graphhierarchies.graph.Traversal;
 import graphhierarchies.graph.Vertex;
 
 import java.util.LinkedList;
@@ -8,17 +11,76 @@ import static graphhierarchies.graph.GraphUtil.DFS_lookup;
 
 /**
  * The class uses on-line Depth First Search functions to answer reachability queries. Hence, every query needs O(|V|+|E|) time, where
- * V is the set of vertices and E the set of edges.
+ * V is the set of vertices and E the set of edges. If the graph is given, the queries run on a CSR copy of it using a
+ * Traversal, which reuses its stack and visited marks instead of allocating them per query.
  */
 public class OnlineDFS implements TransitiveClosure{
+    private final Traversal traversal;
+    private final Vertex[] vertices;
+    private final boolean bidirectional;
+
+    /**
+     * The queries run directly on the Vertex objects of any graph.
+     */
+    public OnlineDFS(){
+        traversal = null;
+        vertices = null;
+        bidirectional = false;
+    }
+
+    /**
+     * The queries run on a CSR copy of graph g. Later changes to g are not reflected.
+     */
+    public OnlineDFS(DiGraph g){
+        vertices = g.getVertices().toArray(new Vertex[0]);
+        traversal = new Traversal(new CSRGraph(g));
+        bidirectional = false;
+    }
+
+    /**
+     * The queries run on a CSR copy of the graph that a topological sorting gives.
+     */
+    public OnlineDFS(Vertex[] topolSorting){
+        this(topolSorting,false);
+    }
+
+    /**
+     * The queries run on a CSR copy of the graph that a topological sorting gives. If bidirectional is true,
+     * isReachable searches forward from the source and backward from the target at the same time and skips every
+     * vertex whose topological rank is not between the ranks of the two vertices (see Traversal.isReachableBidirectional).
+     */
+    public OnlineDFS(Vertex[] topolSorting, boolean bidirectional){
+        vertices = topolSorting;
+        traversal = new Traversal(new CSRGraph(topolSorting));
+        this.bidirectional = bidirectional;
+    }
+
     @Override
     public boolean isReachable(Vertex source, Vertex target) {
-        return DFS_lookup(source,target);
+        if(traversal==null){
+            return DFS_lookup(source,target);
+        }
+        CSRGraph g = traversal.getGraph();
+        int s = g.getIndex(source.getID());
+        int t = g.getIndex(target.getID());
+        if(s==-1||t==-1){
+            return false;
+        }
+        return bidirectional ? traversal.isReachableBidirectional(s,t) : traversal.isReachable(s,t);
     }
 
     @Override
     public LinkedList<Vertex> getSuccessors(Vertex v) {
-        return DFS_lookup(v);
+        if(traversal==null){
+            return DFS_lookup(v);
+        }
+        LinkedList<Vertex> successors = new LinkedList<>();
+        int s = traversal.getGraph().getIndex(v.getID());
+        if(s==-1){
+            return successors;
+        }
+        traversal.forEachSuccessor(s, t -> successors.add(vertices[t]));
+        return successors;
     }
 
 
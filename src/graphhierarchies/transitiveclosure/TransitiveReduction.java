@@ -0,0 +1,233 @@
+package graphhierarchies.transitiveclosure;
+
+import graphhierarchies.chaindecomposition.ChainDecompositionResult;
+import graphhierarchies.graph.CSRGraph;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The class computes the transitive reduction of a directed acyclic graph, i.e. it finds every edge (u,v) such that
+ * v is reachable from u without the edge. The removed edges are exactly the transitive edges that IndexingScheme
+ * collects in Etr.
+ * <br>The chain indices of every vertex are computed from the indices of its immediate successors, as IndexingScheme
+ * does, in ascending order of their topological rank. An immediate successor that is already reachable from the
+ * indices of the previous ones is the target of a transitive edge. The vertices are grouped by height (the length
+ * of the longest path to a sink), the successors of a vertex are lower, so the vertices of every height are
+ * processed in parallel, in ascending order of height. It takes O(|E_red|*k+|E|) time and O(|V|*k+|E|) memory,
+ * where E_red is the set of the edges of the reduction and k the number of chains.
+ */
+public class TransitiveReduction {
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int PARALLEL_THRESHOLD = 1<<6;
+
+    private final CSRGraph graph;
+    private boolean[] isTransitive;
+    private int removed = 0;
+
+    /**
+     * Computes the transitive reduction of a graph in CSR form in parallel on the common fork-join pool. It throws
+     * an ArithmeticException if |V|*k does not fit in an int.
+     * @param decomposition a chain decomposition of the graph
+     * @param g a directed acyclic graph whose vertices are indexed by topological rank and whose targets are sorted
+     *          in ascending order (GraphUtil.sortAdjLists)
+     */
+    public TransitiveReduction(ChainDecompositionResult decomposition, CSRGraph g){
+        int n = g.verticesSize();
+        int k = decomposition.chainsSize();
+        int[] targetOffsets = g.getTargetOffsets();
+        int[] targets = g.getTargets();
+        int[] chainOf = decomposition.getChainOf();
+        int[] positionInChain = decomposition.getPositionInChain();
+        this.graph = g;
+        isTransitive = new boolean[targets.length];
+
+        //the vertices in ascending order of height
+        int[] height = new int[n];
+        int levels = 0;
+        for(int v=n-1;v>=0;--v){
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                height[v] = Math.max(height[v],height[targets[j]]+1);
+            }
+            levels = Math.max(levels,height[v]+1);
+        }
+        int[] levelOffsets = new int[levels+1];
+        for(int v=0;v<n;++v){
+            levelOffsets[height[v]+1]++;
+        }
+        for(int l=0;l<levels;++l){
+            levelOffsets[l+1] += levelOffsets[l];
+        }
+        int[] order = new int[n];
+        int[] pos = Arrays.copyOf(levelOffsets,levels);
+        for(int v=0;v<n;++v){
+            order[pos[height[v]]++] = v;
+        }
+
+        //the row of vertex v holds the first position of every chain that v reaches, other than v itself
+        int[] indices = new int[Math.multiplyExact(n,k)];
+        Arrays.fill(indices,INF);
+        for(int l=0;l<levels;++l){
+            IntStream level = IntStream.range(levelOffsets[l],levelOffsets[l+1]);
+            if(levelOffsets[l+1]-levelOffsets[l]>=PARALLEL_THRESHOLD){
+                level = level.parallel();
+            }
+            level.forEach(i -> {
+                int v = order[i];
+                int row = v*k;
+                for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                    int t = targets[j];
+                    if(indices[row+chainOf[t]]<=positionInChain[t]){
+                        isTransitive[j] = true;
+                        continue;
+                    }
+                    int trow = t*k;
+                    for(int c=0;c<k;++c){
+                        if(indices[trow+c]<indices[row+c]){
+                            indices[row+c] = indices[trow+c];
+                        }
+                    }
+                    indices[row+chainOf[t]] = positionInChain[t];
+                }
+            });
+        }
+        for(boolean b:isTransitive){
+            if(b){
+                ++removed;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the edge targets[j] of the graph (see CSRGraph.getTargets) is transitive.
+     */
+    public boolean isTransitive(int j){
+        return isTransitive[j];
+    }
+
+    public int removedSize(){
+        return removed;
+    }
+
+    public int keptSize(){
+        return isTransitive.length-removed;
+    }
+
+    /**
+     * Returns the edges of the transitive reduction. Every edge is encoded as in CSRGraph.edges, use
+     * CSRGraph.edgeSource and CSRGraph.edgeTarget to decode it.
+     */
+    public long[] getKeptEdges(){
+        return getEdges(false);
+    }
+
+    /**
+     * Returns the transitive edges. Every edge is encoded as in CSRGraph.edges, use CSRGraph.edgeSource and
+     * CSRGraph.edgeTarget to decode it.
+     */
+    public long[] getRemovedEdges(){
+        return getEdges(true);
+    }
+
+    private long[] getEdges(boolean transitive){
+        long[] edges = new long[transitive ? removed : keptSize()];
+        int[] targetOffsets = graph.getTargetOffsets();
+        int[] targets = graph.getTargets();
+        int size = 0;
+        for(int v=0;v<graph.verticesSize();++v){
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                if(isTransitive[j]==transitive){
+                    edges[size++] = (long)v<<32 | targets[j];
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Removes the transitive edges from the graph. The adjacency lists keep their order. Afterwards, the graph has no
+     * transitive edges and so does this reduction.
+     */
+    public void reduce(){
+        int n = graph.verticesSize();
+        int[] targetOffsets = graph.getTargetOffsets();
+        int[] targets = graph.getTargets();
+        int[] sourceOffsets = graph.getSourceOffsets();
+        int[] sources = graph.getSources();
+        int m = keptSize();
+        int[] newTargetOffsets = new int[n+1];
+        int[] newTargets = new int[m];
+        int[] newSourceOffsets = new int[n+1];
+        int[] newSources = new int[m];
+
+        for(int v=0;v<n;++v){
+            int size = newTargetOffsets[v];
+            for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                if(!isTransitive[j]){
+                    newTargets[size++] = targets[j];
+                    newSourceOffsets[targets[j]+1]++;
+                }
+            }
+            newTargetOffsets[v+1] = size;
+        }
+        for(int v=0;v<n;++v){
+            newSourceOffsets[v+1] += newSourceOffsets[v];
+        }
+        //the sources keep the order of the old lists
+        int[] pos = Arrays.copyOf(newSourceOffsets,n);
+        for(int v=0;v<n;++v){
+            for(int j=sourceOffsets[v];j<sourceOffsets[v+1];++j){
+                if(isKept(sources[j],v,targetOffsets,targets)){
+                    newSources[pos[v]++] = sources[j];
+                }
+            }
+        }
+        graph.setTargets(newTargetOffsets,newTargets);
+        graph.setSources(newSourceOffsets,newSources);
+        isTransitive = new boolean[m];
+        removed = 0;
+    }
+
+    /**
+     * Returns true if the edge (u,v) is not transitive. The targets of u are sorted.
+     */
+    private boolean isKept(int u, int v, int[] targetOffsets, int[] targets){
+        int j = Arrays.binarySearch(targets,targetOffsets[u],targetOffsets[u+1],v);
+        return !isTransitive[j];
+    }
+
+    /**
+     * Writes the kept edges and the transitive edges to two files in the format of Reader.ReadEdgeList, with the IDs
+     * of the vertices. A null file is skipped.
+     * @param kept the file of the edges of the transitive reduction
+     * @param removed the file of the transitive edges
+     */
+    public void write(File kept, File removed){
+        if(kept!=null){
+            write(kept,false);
+        }
+        if(removed!=null){
+            write(removed,true);
+        }
+    }
+
+    private void write(File textfile, boolean transitive){
+        int[] targetOffsets = graph.getTargetOffsets();
+        int[] targets = graph.getTargets();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(textfile),1<<16)) {
+            for(int v=0;v<graph.verticesSize();++v){
+                for(int j=targetOffsets[v];j<targetOffsets[v+1];++j){
+                    if(isTransitive[j]==transitive){
+                        writer.write(graph.getID(v)+","+graph.getID(targets[j])+"\n");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
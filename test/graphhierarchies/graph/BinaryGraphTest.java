@@ -0,0 +1,62 @@
+package graphhierarchies.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes the input graphs in the binary format and reads them back with Reader.ReadBinaryGraph.
+ */
+class BinaryGraphTest {
+    private static final File INPUT_GRAPHS = new File("src/InputGraphs");
+
+    @TempDir
+    File folder;
+
+    @Test
+    void sortedGraphKeepsItsOrder(){
+        for(File f:INPUT_GRAPHS.listFiles()){
+            CSRGraph g = Reader.ReadCSRGraph(f);
+            GraphUtil.setTopologicalRank(g);
+            GraphUtil.sortAdjLists(g);
+            File binfile = new File(folder,f.getName()+".bin");
+            Writer.WriteBinaryGraph(g,binfile);
+
+            CSRGraph read = Reader.ReadBinaryGraph(binfile);
+            assertTrue(read.isTopologicallySorted(),f.getName());
+            assertEquals(g.verticesSize(),read.verticesSize(),f.getName());
+            assertArrayEquals(g.edges().toArray(),read.edges().toArray(),f.getName());
+            for(int v=0;v<g.verticesSize();++v){
+                assertEquals(g.getID(v),read.getID(v),f.getName());
+            }
+        }
+    }
+
+    @Test
+    void unsortedGraphIsNotMarked(){
+        File f = new File(INPUT_GRAPHS,"graph3.csv");
+        File binfile = new File(folder,"graph3.bin");
+        Writer.WriteBinaryGraph(Reader.ReadCSRGraph(f),binfile);
+        assertFalse(Reader.ReadBinaryGraph(binfile).isTopologicallySorted());
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        File binfile = new File(folder,"graph3.bin");
+        Writer.WriteBinaryGraph(Reader.ReadCSRGraph(new File(INPUT_GRAPHS,"graph3.csv")),binfile);
+        try (RandomAccessFile file = new RandomAccessFile(binfile,"rw")) {
+            file.setLength(file.length()-4);
+        }
+        assertThrows(IllegalArgumentException.class,() -> Reader.ReadBinaryGraph(binfile));
+    }
+
+    @Test
+    void textFileIsRejected(){
+        assertThrows(IllegalArgumentException.class,() -> Reader.ReadBinaryGraph(new File(INPUT_GRAPHS,"graph3.csv")));
+    }
+}